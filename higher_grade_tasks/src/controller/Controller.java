@@ -1,13 +1,20 @@
 package controller;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import dto.DiscountDTO;
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
 import dto.SaleInfoDTO;
+import dto.SaleLineDTO;
 import integration.AccountingSystem;
+import integration.CircuitOpenException;
 import integration.DatabaseFailureException;
 import integration.DiscountCatalog;
 import integration.InventorySystem;
@@ -15,33 +22,57 @@ import integration.ItemNotFoundException;
 import integration.Printer;
 import model.Amount;
 import model.discount.DiscountFactory;
-import model.discount.DiscountStrategy;
+import model.discount.DiscountSelection;
 import model.Sale;
 import observer.TotalRevenueObserver;
 import util.LogHandler;
 
 /**
- * This serves as the main controller that the cashier interacts with the model and integration systems.
+ * This serves as the main controller that the cashier interacts with the model and integration systems. One controller
+ * can serve many checkout lanes at the same time. Each lane has its own sale, while the integration systems are shared
+ * by all lanes. Calls for different lanes may be made concurrently, but calls for the same lane must be made by one
+ * thread at a time. The methods without a lane ID operate on {@link #DEFAULT_LANE}.
  */
 public class Controller {
+	/**
+	 * The lane used by the methods that do not take a lane ID.
+	 */
+	public static final int DEFAULT_LANE = 0;
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
 	private final AccountingSystem accountingSystem;
 	private final InventorySystem inventorySystem;
 	private final DiscountFactory discountFactory;
 	private final Printer printer;
+	private final PostPaymentPipeline postPaymentPipeline;
 
 	private final LogHandler logger = LogHandler.getLogger();
-	private final ArrayList<TotalRevenueObserver> observers = new ArrayList<>();
-
-	private Sale sale;
+	private final CopyOnWriteArrayList<TotalRevenueObserver> observers = new CopyOnWriteArrayList<>();
+	private final ConcurrentHashMap<Integer, Sale> activeSales = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructor for the Controller class.
 	 */
 	public Controller() {
-		accountingSystem = new AccountingSystem();
-		inventorySystem = new InventorySystem();
-		discountFactory = new DiscountFactory(new DiscountCatalog());
-		printer = new Printer();
+		this(new AccountingSystem(), new InventorySystem(), new DiscountFactory(new DiscountCatalog()), new Printer());
+	}
+
+	/**
+	 * Creates a controller that uses the specified integration systems. The same instances may be shared by several
+	 * controllers.
+	 *
+	 * @param accountingSystem The accounting system that records finalized sales.
+	 * @param inventorySystem  The inventory system that items are retrieved from.
+	 * @param discountFactory  The factory that creates eligible discounts.
+	 * @param printer          The printer that prints receipts.
+	 */
+	public Controller(AccountingSystem accountingSystem, InventorySystem inventorySystem,
+			DiscountFactory discountFactory, Printer printer) {
+		this.accountingSystem = accountingSystem;
+		this.inventorySystem = inventorySystem;
+		this.discountFactory = discountFactory;
+		this.printer = printer;
+		this.postPaymentPipeline = new PostPaymentPipeline(accountingSystem, inventorySystem, printer);
 	}
 
 	/**
@@ -57,11 +88,22 @@ public class Controller {
 	 * Starts a new sale.
 	 */
 	public void startSale() {
-		sale = new Sale();
+		startSale(DEFAULT_LANE);
+	}
+
+	/**
+	 * Starts a new sale at the specified lane. A sale that is already in progress at that lane is discarded.
+	 *
+	 * @param laneId The ID of the checkout lane.
+	 */
+	public void startSale(int laneId) {
+		Sale sale = new Sale(discountFactory);
 
 		for (TotalRevenueObserver observer : observers) {
 			sale.registerObserver(observer);
 		}
+
+		activeSales.put(laneId, sale);
 	}
 
 	/**
@@ -70,13 +112,110 @@ public class Controller {
 	 * @param itemId The ID of the item to be entered into the sale.
 	 * @return The current item information and running total.
 	 * @throws ItemNotFoundException if the item is not found in the inventory.
+	 * @throws CircuitOpenException  if the inventory database is unavailable and is not called.
 	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
 	 */
 	public SaleInfoDTO enterItem(String itemId) throws ItemNotFoundException {
+		return enterItem(DEFAULT_LANE, itemId, 1);
+	}
+
+	/**
+	 * Enter several units of the same item into the sale.
+	 * 
+	 * @param itemId   The ID of the item to be entered into the sale.
+	 * @param quantity The number of units bought.
+	 * @return The current item information and running total.
+	 * @throws ItemNotFoundException if the item is not found in the inventory.
+	 * @throws CircuitOpenException  if the inventory database is unavailable and is not called.
+	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
+	 */
+	public SaleInfoDTO enterItem(String itemId, int quantity) throws ItemNotFoundException {
+		return enterItem(DEFAULT_LANE, itemId, quantity);
+	}
+
+	/**
+	 * Enter an item into the sale at the specified lane.
+	 * 
+	 * @param laneId The ID of the checkout lane.
+	 * @param itemId The ID of the item to be entered into the sale.
+	 * @return The current item information and running total.
+	 * @throws ItemNotFoundException if the item is not found in the inventory.
+	 * @throws IllegalStateException if no sale has been started at the lane.
+	 * @throws CircuitOpenException  if the inventory database is unavailable and is not called.
+	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
+	 */
+	public SaleInfoDTO enterItem(int laneId, String itemId) throws ItemNotFoundException {
+		return enterItem(laneId, itemId, 1);
+	}
+
+	/**
+	 * Enter several units of the same item into the sale at the specified lane.
+	 * 
+	 * @param laneId   The ID of the checkout lane.
+	 * @param itemId   The ID of the item to be entered into the sale.
+	 * @param quantity The number of units bought.
+	 * @return The current item information and running total.
+	 * @throws ItemNotFoundException if the item is not found in the inventory.
+	 * @throws IllegalStateException if no sale has been started at the lane.
+	 * @throws CircuitOpenException  if the inventory database is unavailable and is not called.
+	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
+	 */
+	public SaleInfoDTO enterItem(int laneId, String itemId, int quantity) throws ItemNotFoundException {
+		Sale sale = getActiveSale(laneId);
 		try {
 			ItemDTO boughtItem = inventorySystem.retrieveItem(itemId);
-			SaleInfoDTO saleInfo = sale.addBoughtItem(boughtItem);
+			SaleInfoDTO saleInfo = sale.addBoughtItem(boughtItem, quantity);
 			return saleInfo;
+		} catch (CircuitOpenException e) {
+			/*
+			 * The failures that opened the circuit have already been logged. The exception has no stack trace and is
+			 * passed on as it is, so rejecting a scan while the database is down stays cheap.
+			 */
+			throw e;
+		} catch (DatabaseFailureException e) {
+			logger.logException(e);
+			throw new RuntimeException("An inventory database error occurred", e);
+		}
+	}
+
+	/**
+	 * Enter an item into the sale if it exists, without throwing when it does not.
+	 * 
+	 * @param itemId The ID of the item to be entered into the sale.
+	 * @return The current item information and running total, or an empty Optional if the item is not found.
+	 * @throws CircuitOpenException if the inventory database is unavailable and is not called.
+	 * @throws RuntimeException     if the item cannot be retrieved due to inventory system failure.
+	 */
+	public Optional<SaleInfoDTO> enterItemIfExists(String itemId) {
+		return enterItemIfExists(DEFAULT_LANE, itemId, 1);
+	}
+
+	/**
+	 * Enter several units of an item into the sale at the specified lane if the item exists, without throwing when it
+	 * does not. Unknown IDs are cheap to reject this way.
+	 * 
+	 * @param laneId   The ID of the checkout lane.
+	 * @param itemId   The ID of the item to be entered into the sale.
+	 * @param quantity The number of units bought.
+	 * @return The current item information and running total, or an empty Optional if the item is not found.
+	 * @throws IllegalStateException if no sale has been started at the lane.
+	 * @throws CircuitOpenException  if the inventory database is unavailable and is not called.
+	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
+	 */
+	public Optional<SaleInfoDTO> enterItemIfExists(int laneId, String itemId, int quantity) {
+		Sale sale = getActiveSale(laneId);
+		try {
+			Optional<ItemDTO> boughtItem = inventorySystem.findItem(itemId);
+			if (boughtItem.isEmpty()) {
+				return Optional.empty();
+			}
+			return Optional.of(sale.addBoughtItem(boughtItem.get(), quantity));
+		} catch (CircuitOpenException e) {
+			/*
+			 * The failures that opened the circuit have already been logged. The exception has no stack trace and is
+			 * passed on as it is, so rejecting a scan while the database is down stays cheap.
+			 */
+			throw e;
 		} catch (DatabaseFailureException e) {
 			logger.logException(e);
 			throw new RuntimeException("An inventory database error occurred", e);
@@ -89,23 +228,48 @@ public class Controller {
 	 * @return The total price of the current sale.
 	 */
 	public Amount endSale() {
-		return sale.getTotalPrice().rounded();
+		return endSale(DEFAULT_LANE);
 	}
 
 	/**
-	 * Requests and applies all eligible discounts for the given customer.
+	 * Ends the current sale at the specified lane and returns the total price for this sale.
+	 * 
+	 * @param laneId The ID of the checkout lane.
+	 * @return The total price of the current sale.
+	 * @throws IllegalStateException if no sale has been started at the lane.
+	 */
+	public Amount endSale(int laneId) {
+		return getActiveSale(laneId).getTotalPrice().rounded();
+	}
+
+	/**
+	 * Requests and applies the best combination of eligible discounts for the given customer.
 	 *
 	 * @param customerId The customer ID.
 	 * @return The discounted total price.
 	 */
 	public Amount requestDiscount(int customerId) {
-		ArrayList<ItemDTO> boughtItems = sale.getBoughtItems();
+		return requestDiscount(DEFAULT_LANE, customerId);
+	}
+
+	/**
+	 * Requests and applies the best combination of eligible discounts for the given customer to the sale at the
+	 * specified lane.
+	 *
+	 * @param laneId     The ID of the checkout lane.
+	 * @param customerId The customer ID.
+	 * @return The discounted total price.
+	 * @throws IllegalStateException if no sale has been started at the lane.
+	 */
+	public Amount requestDiscount(int laneId, int customerId) {
+		Sale sale = getActiveSale(laneId);
+		ArrayList<SaleLineDTO> saleLines = sale.getSaleLines();
 		Amount totalPrice = sale.getTotalPrice();
 
-		DiscountDTO discountDTO = new DiscountDTO(boughtItems, totalPrice, customerId);
-		ArrayList<DiscountStrategy> discounts = discountFactory.fetchEligibleDiscounts(discountDTO);
+		DiscountDTO discountDTO = new DiscountDTO(saleLines, sale.getItemCount(), totalPrice, customerId);
+		DiscountSelection discounts = discountFactory.selectDiscounts(discountDTO);
 
-		Amount discountedPrice = sale.setDiscountedPrice(discounts);
+		Amount discountedPrice = sale.setDiscountedPrice(discounts.getDiscounts());
 		return discountedPrice;
 	}
 
@@ -116,15 +280,91 @@ public class Controller {
 	 * @return The change to be returned to the customer.
 	 */
 	public Amount finalizeSaleWithPayment(Amount amount) {
+		return finalizeSaleWithPayment(DEFAULT_LANE, amount);
+	}
+
+	/**
+	 * Handles payment for the sale at the specified lane and returns the change, then prints the receipt. The lane has
+	 * no sale in progress afterwards. If the sale could not be recorded in the accounting system, the failure is logged
+	 * and the inventory is still updated and the receipt printed, since the customer has already paid.
+	 * 
+	 * @param laneId The ID of the checkout lane.
+	 * @param amount The paid amount.
+	 * @return The change to be returned to the customer.
+	 * @throws IllegalStateException if no sale has been started at the lane.
+	 */
+	public Amount finalizeSaleWithPayment(int laneId, Amount amount) {
+		Sale sale = getActiveSale(laneId);
 		sale.setAmountPaid(amount);
 
 		SaleDTO saleDTO = sale.getSaleInfo(amount);
 		ReceiptDTO receiptDTO = sale.getReceiptInfo(saleDTO);
+		activeSales.remove(laneId, sale);
 
-		accountingSystem.account(saleDTO);
-		inventorySystem.updateInventory(saleDTO);
+		try {
+			accountingSystem.account(saleDTO);
+		} catch (UncheckedIOException | ArithmeticException e) {
+			logger.logException(e);
+		}
+		PostPaymentPipeline.logUnknownItems(inventorySystem.updateInventory(saleDTO), logger);
 		printer.printReceipt(receiptDTO);
 
 		return saleDTO.change().rounded();
 	}
+
+	/**
+	 * Handles payment and returns the change at once, while accounting, inventory update and printing of the receipt
+	 * continue in the background.
+	 * 
+	 * @param amount The paid amount.
+	 * @return The change together with the completion of each post-payment stage.
+	 */
+	public FinalizedSale finalizeSaleWithPaymentAsync(Amount amount) {
+		return finalizeSaleWithPaymentAsync(DEFAULT_LANE, amount);
+	}
+
+	/**
+	 * Handles payment for the sale at the specified lane and returns the change at once, while accounting, inventory
+	 * update and printing of the receipt continue in the background. Failures in those stages are logged and reported
+	 * through the returned completions. The lane has no sale in progress afterwards.
+	 * 
+	 * @param laneId The ID of the checkout lane.
+	 * @param amount The paid amount.
+	 * @return The change together with the completion of each post-payment stage.
+	 * @throws IllegalStateException if no sale has been started at the lane, or if the controller has been shut down.
+	 *                               The sale stays at the lane in both cases.
+	 */
+	public FinalizedSale finalizeSaleWithPaymentAsync(int laneId, Amount amount) {
+		Sale sale = getActiveSale(laneId);
+		sale.setAmountPaid(amount);
+
+		FinalizedSale finalizedSale = postPaymentPipeline.submit(sale, amount);
+		activeSales.remove(laneId, sale);
+
+		return finalizedSale;
+	}
+
+	/**
+	 * Stops the background threads used by asynchronous finalization, and waits until the work that is already
+	 * started is completed. Sales can no longer be finalized asynchronously afterwards.
+	 */
+	public void shutdown() {
+		postPaymentPipeline.shutdown();
+		try {
+			if (!postPaymentPipeline.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				logger.logException(new IllegalStateException("Post-payment work did not complete within %d seconds"
+						.formatted(SHUTDOWN_TIMEOUT_SECONDS)));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Sale getActiveSale(int laneId) {
+		Sale sale = activeSales.get(laneId);
+		if (sale == null) {
+			throw new IllegalStateException("No sale has been started at lane %d".formatted(laneId));
+		}
+		return sale;
+	}
 }
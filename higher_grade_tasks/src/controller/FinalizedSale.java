@@ -0,0 +1,69 @@
+package controller;
+
+import java.util.concurrent.CompletableFuture;
+
+import model.Amount;
+
+/**
+ * The result of a sale that was finalized asynchronously. The change is known at once, while accounting, inventory
+ * update and printing of the receipt complete later, each on its own.
+ */
+public class FinalizedSale {
+	private final Amount change;
+	private final CompletableFuture<Void> accounted;
+	private final CompletableFuture<Void> inventoryUpdated;
+	private final CompletableFuture<Void> printed;
+
+	FinalizedSale(Amount change, CompletableFuture<Void> accounted, CompletableFuture<Void> inventoryUpdated,
+			CompletableFuture<Void> printed) {
+		this.change = change;
+		this.accounted = accounted;
+		this.inventoryUpdated = inventoryUpdated;
+		this.printed = printed;
+	}
+
+	/**
+	 * Retrieves the change to be returned to the customer.
+	 *
+	 * @return The change, rounded to two decimal places.
+	 */
+	public Amount getChange() {
+		return change;
+	}
+
+	/**
+	 * Retrieves the completion of recording the sale in the accounting system.
+	 *
+	 * @return Completes when the sale is recorded, exceptionally if recording failed.
+	 */
+	public CompletableFuture<Void> getAccounted() {
+		return accounted;
+	}
+
+	/**
+	 * Retrieves the completion of updating the inventory.
+	 *
+	 * @return Completes when the inventory is updated, exceptionally if the update failed.
+	 */
+	public CompletableFuture<Void> getInventoryUpdated() {
+		return inventoryUpdated;
+	}
+
+	/**
+	 * Retrieves the completion of printing the receipt.
+	 *
+	 * @return Completes when the receipt is printed, exceptionally if printing failed.
+	 */
+	public CompletableFuture<Void> getPrinted() {
+		return printed;
+	}
+
+	/**
+	 * Retrieves the completion of all post-payment work.
+	 *
+	 * @return Completes when all stages are done, exceptionally if any of them failed.
+	 */
+	public CompletableFuture<Void> getAllCompleted() {
+		return CompletableFuture.allOf(accounted, inventoryUpdated, printed);
+	}
+}
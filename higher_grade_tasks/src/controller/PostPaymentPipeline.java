@@ -0,0 +1,124 @@
+package controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import dto.InventoryUpdateDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import integration.AccountingSystem;
+import integration.InventorySystem;
+import integration.Printer;
+import model.Amount;
+import model.Sale;
+import util.LogHandler;
+
+/**
+ * Runs the work that follows a payment, accounting, inventory update and printing, as independent stages. Each stage
+ * has its own single thread, so a slow printer does not delay bookkeeping and the other way around. Failures are
+ * written to the log.
+ */
+class PostPaymentPipeline {
+	private final AccountingSystem accountingSystem;
+	private final InventorySystem inventorySystem;
+	private final Printer printer;
+
+	private final ExecutorService accountingExecutor = createStageExecutor("accounting");
+	private final ExecutorService inventoryExecutor = createStageExecutor("inventory");
+	private final ExecutorService printingExecutor = createStageExecutor("printing");
+	private final LogHandler logger = LogHandler.getLogger();
+	private boolean shutDown;
+
+	PostPaymentPipeline(AccountingSystem accountingSystem, InventorySystem inventorySystem, Printer printer) {
+		this.accountingSystem = accountingSystem;
+		this.inventorySystem = inventorySystem;
+		this.printer = printer;
+	}
+
+	/**
+	 * Finalizes the paid sale and starts all post-payment stages for it. The sale is only finalized, which notifies its
+	 * revenue observers, if the stages can be started.
+	 *
+	 * @param sale   The paid sale.
+	 * @param amount The paid amount.
+	 * @return The change together with the completion of each stage.
+	 * @throws IllegalStateException if the pipeline has been shut down. The sale is not finalized then.
+	 */
+	synchronized FinalizedSale submit(Sale sale, Amount amount) {
+		if (shutDown) {
+			throw new IllegalStateException("Post-payment processing has been shut down");
+		}
+		SaleDTO saleDTO = sale.getSaleInfo(amount);
+		ReceiptDTO receiptDTO = sale.getReceiptInfo(saleDTO);
+		CompletableFuture<Void> accounted = runStage(() -> accountingSystem.account(saleDTO), accountingExecutor);
+		CompletableFuture<Void> inventoryUpdated = runStage(
+				() -> logUnknownItems(inventorySystem.updateInventory(saleDTO), logger), inventoryExecutor);
+		CompletableFuture<Void> printed = runStage(() -> printer.printReceipt(receiptDTO), printingExecutor);
+
+		return new FinalizedSale(saleDTO.change().rounded(), accounted, inventoryUpdated, printed);
+	}
+
+	/**
+	 * Stops accepting new sales.
+	 */
+	synchronized void shutdown() {
+		shutDown = true;
+		accountingExecutor.shutdown();
+		inventoryExecutor.shutdown();
+		printingExecutor.shutdown();
+	}
+
+	/**
+	 * Waits until every stage that was submitted before {@link #shutdown()} has completed.
+	 *
+	 * @param timeout The longest time to wait for each stage.
+	 * @param unit    The unit of the timeout.
+	 * @return true if all stages completed, false if the timeout elapsed first.
+	 * @throws InterruptedException if the waiting thread was interrupted.
+	 */
+	boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return accountingExecutor.awaitTermination(timeout, unit)
+				& inventoryExecutor.awaitTermination(timeout, unit)
+				& printingExecutor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Logs the sold items that the inventory did not know, since their stock could not be updated.
+	 *
+	 * @param update The result of an inventory update.
+	 * @param logger The log to write to.
+	 */
+	static void logUnknownItems(InventoryUpdateDTO update, LogHandler logger) {
+		if (!update.unknownItemIds().isEmpty()) {
+			logger.logWarning("Sold items missing from the inventory were not updated: " + update.unknownItemIds());
+		}
+	}
+
+	private CompletableFuture<Void> runStage(Runnable stage, ExecutorService executor) {
+		CompletableFuture<Void> completion = CompletableFuture.runAsync(stage, executor);
+		completion.whenComplete((result, failure) -> {
+			if (failure != null) {
+				logger.logException(toException(failure));
+			}
+		});
+		return completion;
+	}
+
+	private Exception toException(Throwable failure) {
+		Throwable cause = (failure instanceof CompletionException && failure.getCause() != null)
+				? failure.getCause()
+				: failure;
+		return (cause instanceof Exception) ? (Exception) cause : new RuntimeException(cause);
+	}
+
+	private static ExecutorService createStageExecutor(String stageName) {
+		return Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "post-payment-" + stageName);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
@@ -0,0 +1,5 @@
+package dto;
+
+import java.time.LocalDateTime;
+
+public record ArchivedReceiptDTO(long receiptNumber, LocalDateTime saleDateTime, String receipt) {}
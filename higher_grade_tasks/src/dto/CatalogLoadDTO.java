@@ -0,0 +1,3 @@
+package dto;
+
+public record CatalogLoadDTO(int loadedItemCount, long loadTimeMillis, long heapGrowthBytes) {}
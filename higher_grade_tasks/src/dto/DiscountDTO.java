@@ -4,4 +4,4 @@ import java.util.ArrayList;
 
 import model.Amount;
 
-public record DiscountDTO(ArrayList<ItemDTO> boughtIitems, Amount totalPrice, int customerId) {}
+public record DiscountDTO(ArrayList<SaleLineDTO> saleLines, int itemCount, Amount totalPrice, int customerId) {}
@@ -1,5 +1,8 @@
 package dto;
 
+import java.util.Set;
+
 import model.Amount;
+import model.discount.DiscountType;
 
-public record DiscountInfoDTO(String type, Amount value, String description) {}
+public record DiscountInfoDTO(DiscountType type, Amount value, String description, Set<String> exclusivityGroups) {}
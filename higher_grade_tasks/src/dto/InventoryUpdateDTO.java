@@ -0,0 +1,5 @@
+package dto;
+
+import java.util.ArrayList;
+
+public record InventoryUpdateDTO(int updatedItemCount, ArrayList<String> unknownItemIds) {}
@@ -0,0 +1,6 @@
+package dto;
+
+import model.Amount;
+import model.discount.PromotionType;
+
+public record PromotionInfoDTO(PromotionType type, String itemId, int groupSize, Amount value, String description) {}
@@ -5,5 +5,5 @@ import java.util.ArrayList;
 
 import model.Amount;
 
-public record SaleDTO(LocalDateTime saleDateTime, ArrayList<ItemDTO> boughtItems, Amount totalPrice,
+public record SaleDTO(LocalDateTime saleDateTime, ArrayList<SaleLineDTO> saleLines, Amount totalPrice,
 		Amount totalVat, Amount amountPaid, Amount change, Amount discountedPrice) {}
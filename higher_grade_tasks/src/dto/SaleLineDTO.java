@@ -0,0 +1,3 @@
+package dto;
+
+public record SaleLineDTO(ItemDTO item, int quantity) {}
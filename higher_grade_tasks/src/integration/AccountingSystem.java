@@ -1,28 +1,128 @@
 package integration;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 
 import dto.SaleDTO;
+import model.Amount;
+import util.LogHandler;
 
 /**
- * The AccountingSystem class is responsible for recording sales information.
+ * The AccountingSystem class is responsible for recording sales information. Sales may be recorded from several
+ * lanes at the same time. The sales are kept in a columnar {@link SalesLedger}, with amounts rounded to hundredths.
+ * With a {@link SalesJournal}, every sale is written to disk before it is recorded, and the journaled sales are
+ * recorded again when the accounting system is created.
  */
 public class AccountingSystem {
-	private final ArrayList<SaleDTO> recordedSales;
+	private final SalesLedger ledger;
+	private final SalesJournal journal;
 
 	/**
-	 * Constructor for the AccountingSystem class.
+	 * Constructor for the AccountingSystem class. Recorded sales are lost when the program stops.
 	 */
 	public AccountingSystem() {
-		recordedSales = new ArrayList<>();
+		ledger = new SalesLedger();
+		journal = null;
 	}
 
 	/**
-	 * Records the sale information in the accounting system.
-	 * 
+	 * Creates an accounting system that journals every sale, after recording the sales already in the journal.
+	 *
+	 * @param journal The journal of finalized sales.
+	 * @throws IOException if the journal could not be replayed.
+	 */
+	public AccountingSystem(SalesJournal journal) throws IOException {
+		this.ledger = new SalesLedger();
+		this.journal = journal;
+		journal.replay(this::recordReplayed);
+	}
+
+	/**
+	 * Records the sale information in the accounting system. When there is a journal, this method returns when the
+	 * sale has been written to disk, which it is together with the sales recorded meanwhile on other lanes.
+	 *
 	 * @param saleDTO The sale information.
+	 * @throws ArithmeticException  if an amount of the sale is too large to be recorded, in which case it is neither
+	 *                              journaled nor recorded.
+	 * @throws UncheckedIOException if the sale could not be journaled, in which case it is not recorded.
 	 */
 	public void account(SaleDTO saleDTO) {
-		recordedSales.add(saleDTO);
+		/* Converted before journaling, so every journaled sale can be recorded again when the journal is replayed. */
+		SalesLedger.RecordedAmounts amounts = SalesLedger.toRecordedAmounts(saleDTO);
+		if (journal != null) {
+			journal.append(saleDTO);
+		}
+		synchronized (this) {
+			ledger.record(saleDTO, amounts);
+		}
+	}
+
+	/* A journaled sale that cannot be recorded is skipped, so it does not stop the program from starting. */
+	private void recordReplayed(SaleDTO saleDTO) {
+		try {
+			ledger.record(saleDTO);
+		} catch (ArithmeticException e) {
+			LogHandler.getLogger().logException(e);
+		}
+	}
+
+	/**
+	 * Retrieves the number of recorded sales.
+	 *
+	 * @return The number of sales.
+	 */
+	public synchronized int getSaleCount() {
+		return ledger.getSaleCount();
+	}
+
+	/**
+	 * Retrieves a recorded sale, with its amounts rounded to hundredths.
+	 *
+	 * @param index The position of the sale, 0 for the first recorded sale.
+	 * @return The sale information.
+	 * @throws IndexOutOfBoundsException if there is no sale at the specified position.
+	 */
+	public synchronized SaleDTO getSale(int index) {
+		return ledger.getSale(index);
+	}
+
+	/**
+	 * Retrieves the total price of all recorded sales.
+	 *
+	 * @return The total revenue.
+	 */
+	public synchronized Amount getTotalRevenue() {
+		return ledger.sum(SalesLedger.Column.TOTAL_PRICE);
+	}
+
+	/**
+	 * Retrieves the total VAT of all recorded sales.
+	 *
+	 * @return The total VAT.
+	 */
+	public synchronized Amount getTotalVat() {
+		return ledger.sum(SalesLedger.Column.TOTAL_VAT);
+	}
+
+	/**
+	 * Retrieves the total price of the sales made in the specified period.
+	 *
+	 * @param from The start of the period, inclusive.
+	 * @param to   The end of the period, exclusive.
+	 * @return The revenue of the period.
+	 */
+	public synchronized Amount getRevenue(LocalDateTime from, LocalDateTime to) {
+		return ledger.sumTotalPrices(from, to);
+	}
+
+	/**
+	 * Retrieves how many of the specified item have been sold.
+	 *
+	 * @param itemId The ID of the item.
+	 * @return The sold quantity.
+	 */
+	public synchronized long getSoldQuantity(String itemId) {
+		return ledger.sumQuantity(itemId);
 	}
 }
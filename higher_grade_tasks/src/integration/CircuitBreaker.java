@@ -0,0 +1,174 @@
+package integration;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Protects callers from a failing backend. While the backend works the circuit is closed and every call goes
+ * through. After a number of failures in a row the circuit opens, and calls fail at once without reaching the backend.
+ * When the probe interval has passed the circuit is half-open and lets one probe call through; success closes the
+ * circuit and failure opens it again. The circuit breaker can be shared by several lanes.
+ */
+public class CircuitBreaker {
+	/**
+	 * The states of a circuit breaker.
+	 */
+	public enum State {
+		/**
+		 * Calls go through to the backend.
+		 */
+		CLOSED,
+		/**
+		 * Calls fail at once without reaching the backend.
+		 */
+		OPEN,
+		/**
+		 * One probe call goes through to the backend while other calls fail at once.
+		 */
+		HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long probeIntervalNanos;
+	private final LongSupplier clock;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+	private boolean probeInFlight;
+
+	private final AtomicLong openedCount = new AtomicLong();
+	private final AtomicLong halfOpenedCount = new AtomicLong();
+	private final AtomicLong closedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Creates a closed circuit breaker.
+	 *
+	 * @param failureThreshold The number of failures in a row that opens the circuit.
+	 * @param probeInterval    How long the circuit stays open before a probe call is let through.
+	 */
+	public CircuitBreaker(int failureThreshold, Duration probeInterval) {
+		this(failureThreshold, probeInterval, System::nanoTime);
+	}
+
+	CircuitBreaker(int failureThreshold, Duration probeInterval, LongSupplier clock) {
+		if (failureThreshold <= 0) {
+			throw new IllegalArgumentException(
+					"Failure threshold must be positive, was %d".formatted(failureThreshold));
+		}
+		if (probeInterval.isNegative()) {
+			throw new IllegalArgumentException("Probe interval must not be negative, was %s".formatted(probeInterval));
+		}
+		this.failureThreshold = failureThreshold;
+		this.probeIntervalNanos = probeInterval.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * Asks for permission to call the backend. Every call that is permitted must be followed by
+	 * {@link #recordSuccess()} or {@link #recordFailure()}.
+	 *
+	 * @throws CircuitOpenException if the circuit is open, or half-open with a probe call already in progress.
+	 */
+	public synchronized void acquirePermission() throws CircuitOpenException {
+		if (state == State.OPEN) {
+			long waitedNanos = clock.getAsLong() - openedAt;
+			if (waitedNanos < probeIntervalNanos) {
+				throw reject(probeIntervalNanos - waitedNanos);
+			}
+			state = State.HALF_OPEN;
+			halfOpenedCount.incrementAndGet();
+		}
+
+		if (state == State.HALF_OPEN) {
+			if (probeInFlight) {
+				throw reject(0);
+			}
+			probeInFlight = true;
+		}
+	}
+
+	/**
+	 * Records that a permitted call succeeded. A successful probe call closes the circuit.
+	 */
+	public synchronized void recordSuccess() {
+		consecutiveFailures = 0;
+		if (state == State.HALF_OPEN) {
+			probeInFlight = false;
+			state = State.CLOSED;
+			closedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records that a permitted call failed. A failed probe call, or too many failures in a row, opens the circuit.
+	 */
+	public synchronized void recordFailure() {
+		if (state == State.HALF_OPEN) {
+			probeInFlight = false;
+			open();
+		} else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+			open();
+		}
+	}
+
+	/**
+	 * Retrieves the current state. An open circuit whose probe interval has passed is reported as open until the
+	 * next call asks for permission.
+	 *
+	 * @return The current state.
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Retrieves the number of times the circuit has opened.
+	 *
+	 * @return The number of transitions to {@link State#OPEN}.
+	 */
+	public long getOpenedCount() {
+		return openedCount.get();
+	}
+
+	/**
+	 * Retrieves the number of times the circuit has let a probe call through.
+	 *
+	 * @return The number of transitions to {@link State#HALF_OPEN}.
+	 */
+	public long getHalfOpenedCount() {
+		return halfOpenedCount.get();
+	}
+
+	/**
+	 * Retrieves the number of times a probe call has closed the circuit.
+	 *
+	 * @return The number of transitions to {@link State#CLOSED}.
+	 */
+	public long getClosedCount() {
+		return closedCount.get();
+	}
+
+	/**
+	 * Retrieves the number of calls that failed at once without reaching the backend.
+	 *
+	 * @return The number of rejected calls.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = clock.getAsLong();
+		consecutiveFailures = 0;
+		openedCount.incrementAndGet();
+	}
+
+	private CircuitOpenException reject(long remainingNanos) {
+		rejectedCount.incrementAndGet();
+		return new CircuitOpenException(Duration.ofNanos(remainingNanos).toMillis());
+	}
+}
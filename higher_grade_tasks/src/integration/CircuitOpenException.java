@@ -0,0 +1,30 @@
+package integration;
+
+/**
+ * Thrown instead of calling the inventory database while the circuit breaker in front of it is open. The database
+ * failures that opened the circuit have already been reported, so the exception does not record a stack trace.
+ */
+public class CircuitOpenException extends DatabaseFailureException {
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterMillis;
+
+	/**
+	 * Creates a new instance telling when the database will be tried again.
+	 * 
+	 * @param retryAfterMillis The number of milliseconds until the circuit lets a probe call through.
+	 */
+	CircuitOpenException(long retryAfterMillis) {
+		super("Inventory database is unavailable, next attempt in %d ms".formatted(retryAfterMillis), false);
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	/**
+	 * Retrieves the time until the database will be tried again.
+	 * 
+	 * @return The number of milliseconds until the circuit lets a probe call through.
+	 */
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+}
@@ -0,0 +1,118 @@
+package integration;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the customer-dependent part of discount eligibility, so that returning customers do not have
+ * their customer and segment conditions worked out again. Entries are keyed by the primitive customer ID and tagged
+ * with the catalog version they were computed for, so reloading the catalog invalidates them without clearing the
+ * cache. The cache is two-way set associative: a customer can only be stored in one of two slots, and a new entry
+ * pushes out the older of them. The cache can be used from several lanes without locking.
+ */
+public class CustomerEligibilityCache {
+	private final AtomicReferenceArray<Entry> slots;
+	private final int setMask;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Creates a cache with room for at least the specified number of customers.
+	 *
+	 * @param capacity The number of customers to keep, rounded up to a power of two.
+	 */
+	public CustomerEligibilityCache(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be positive, was %d".formatted(capacity));
+		}
+		int sets = Math.max(1, Integer.highestOneBit((capacity + 1) / 2 - 1) << 1);
+		this.slots = new AtomicReferenceArray<>(sets * 2);
+		this.setMask = sets - 1;
+	}
+
+	/**
+	 * Retrieves the cached eligibility of a customer.
+	 *
+	 * @param customerId     The customer ID.
+	 * @param catalogVersion The version of the catalog the eligibility must have been computed for.
+	 * @return The cached eligibility, or null if it is not cached for this catalog version.
+	 */
+	DiscountRuleSet.CustomerEligibility get(int customerId, long catalogVersion) {
+		int first = firstSlot(customerId);
+		for (int slot = first; slot < first + 2; slot++) {
+			Entry entry = slots.get(slot);
+			if (entry != null && entry.customerId == customerId && entry.catalogVersion == catalogVersion) {
+				hitCount.increment();
+				return entry.eligibility;
+			}
+		}
+		missCount.increment();
+		return null;
+	}
+
+	/**
+	 * Caches the eligibility of a customer, pushing out the older entry of its set if both slots are used.
+	 *
+	 * @param customerId     The customer ID.
+	 * @param catalogVersion The version of the catalog the eligibility was computed for.
+	 * @param eligibility    The customer eligibility.
+	 */
+	void put(int customerId, long catalogVersion, DiscountRuleSet.CustomerEligibility eligibility) {
+		int first = firstSlot(customerId);
+		Entry previous = slots.getAndSet(first, new Entry(customerId, catalogVersion, eligibility));
+		if (previous != null && previous.customerId != customerId) {
+			Entry pushedOut = slots.getAndSet(first + 1, previous);
+			if (pushedOut != null && pushedOut.customerId != customerId) {
+				evictionCount.increment();
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of lookups that found a cached eligibility.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of lookups that did not find a cached eligibility, including entries of an older catalog
+	 * version.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of entries that were pushed out by other customers.
+	 *
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * Retrieves the share of lookups that found a cached eligibility.
+	 *
+	 * @return The hit rate between 0 and 1, or 0 if there have been no lookups.
+	 */
+	public double getHitRate() {
+		long hits = hitCount.sum();
+		long lookups = hits + missCount.sum();
+		return (lookups == 0) ? 0 : (double) hits / lookups;
+	}
+
+	private int firstSlot(int customerId) {
+		int hash = customerId * 0x9E3779B9;
+		return ((hash ^ (hash >>> 16)) & setMask) << 1;
+	}
+
+	private record Entry(int customerId, long catalogVersion, DiscountRuleSet.CustomerEligibility eligibility) {}
+}
@@ -12,4 +12,14 @@ public class DatabaseFailureException extends RuntimeException {
 	DatabaseFailureException(String message) {
 		super(message);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Creates a new instance that may skip recording its stack trace.
+	 * 
+	 * @param message            A message that describes what went wrong.
+	 * @param writableStackTrace Whether the stack trace shall be recorded.
+	 */
+	DatabaseFailureException(String message, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+	}
+}
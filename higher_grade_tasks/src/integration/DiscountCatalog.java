@@ -1,63 +1,142 @@
 package integration;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 
 import dto.DiscountDTO;
 import dto.DiscountInfoDTO;
-import model.Amount;
+import dto.PromotionInfoDTO;
 
 /**
- * Simulates a discount catalog.
+ * Simulates a discount catalog. The discounts and line promotions are described by declarative rules, see
+ * {@link DiscountRuleParser} for the format, which are compiled when they are loaded. The catalog can be used from
+ * several lanes, also while new rules are loaded. The customer-dependent part of eligibility is cached for returning
+ * customers.
  */
 public class DiscountCatalog {
-	private final HashMap<String, DiscountInfoDTO> catalog;
+	private static final String SIMULATED_RULES = """
+			rule;ITEM_BASED;5.00;items>2;5 SEK off for buying more than 2 items
+			rule;TOTAL_PERCENT;0.10;total>100;10% off for total price > 100
+			rule;CUSTOMER_PERCENT;0.05;customer=114514;5% off for customer 114514
+			""";
+
+	private volatile CatalogSnapshot snapshot = new CatalogSnapshot(null, 0);
+	private final CustomerEligibilityCache customerEligibilityCache;
 
 	/**
 	 * Constructor for the DiscountCatalog class.
 	 */
 	public DiscountCatalog() {
-		catalog = new HashMap<>();
+		this(4096);
+	}
+
+	/**
+	 * Creates a catalog that remembers the customer-dependent eligibility of the specified number of customers.
+	 * 
+	 * @param customerCacheCapacity The number of customers to remember.
+	 */
+	public DiscountCatalog(int customerCacheCapacity) {
+		customerEligibilityCache = new CustomerEligibilityCache(customerCacheCapacity);
 		simulateCatalog();
 	}
 
 	/**
-	 * Fetch discount based on the type of the discount.
+	 * Fetch all discounts whose rules are met by the sale.
 	 * 
 	 * @param discountDTO The discount information.
 	 * @return A list of eligible discounts.
 	 */
 	public ArrayList<DiscountInfoDTO> fetchEligibleDiscounts(DiscountDTO discountDTO) {
-		ArrayList<DiscountInfoDTO> eligibleDiscounts = new ArrayList<>();
-
-		if (discountDTO.boughtIitems().size() > 2) {
-			DiscountInfoDTO discount = catalog.get("ITEM_BASED");
-			if (discount != null) {
-				eligibleDiscounts.add(discount);
-			}
-		}
-		if (discountDTO.totalPrice().compareTo(new Amount("100")) > 0) {
-			DiscountInfoDTO discount = catalog.get("TOTAL_PERCENT");
-			if (discount != null) {
-				eligibleDiscounts.add(discount);
-			}
+		CatalogSnapshot current = snapshot;
+		int customerId = discountDTO.customerId();
+		DiscountRuleSet.CustomerEligibility customerEligibility = customerEligibilityCache.get(customerId,
+				current.version());
+		if (customerEligibility == null) {
+			customerEligibility = current.ruleSet().computeCustomerEligibility(customerId);
+			customerEligibilityCache.put(customerId, current.version(), customerEligibility);
 		}
-		if (discountDTO.customerId() == 114514) {
-			DiscountInfoDTO discount = catalog.get("CUSTOMER_PERCENT");
-			if (discount != null) {
-				eligibleDiscounts.add(discount);
-			}
+		return current.ruleSet().findEligibleDiscounts(discountDTO, customerEligibility);
+	}
+
+	/**
+	 * Fetch the line promotion for an item, if it has one.
+	 * 
+	 * @param itemId The ID of the item.
+	 * @return The promotion, or an empty Optional if the item has no promotion.
+	 */
+	public Optional<PromotionInfoDTO> fetchPromotion(String itemId) {
+		return Optional.ofNullable(snapshot.ruleSet().findPromotion(itemId));
+	}
+
+	/**
+	 * Replaces all discount rules with the rules in the specified file.
+	 * 
+	 * @param rulesFile The file with the rule definitions, encoded in UTF-8.
+	 * @throws IOException                 if the file cannot be read.
+	 * @throws DiscountRuleFormatException if a rule cannot be parsed. The previous rules are kept.
+	 */
+	public void loadRules(Path rulesFile) throws IOException, DiscountRuleFormatException {
+		loadRules(Files.readAllLines(rulesFile, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Replaces all discount rules with the specified rule definitions. The new rules are parsed and compiled before
+	 * they replace the old rules in one step, so concurrent lookups see either the old or the new rules.
+	 * 
+	 * @param ruleLines The lines of the rule definitions.
+	 * @throws DiscountRuleFormatException if a rule cannot be parsed. The previous rules are kept.
+	 */
+	public void loadRules(List<String> ruleLines) throws DiscountRuleFormatException {
+		DiscountRuleSet ruleSet = DiscountRuleParser.parse(ruleLines);
+		synchronized (this) {
+			snapshot = new CatalogSnapshot(ruleSet, snapshot.version() + 1);
 		}
+	}
 
-		return eligibleDiscounts;
+	/**
+	 * Retrieves the version of the loaded rules. The version changes every time new rules are loaded, so anything
+	 * created from the catalog entries can be thrown away when it changes.
+	 * 
+	 * @return The current version.
+	 */
+	public long getVersion() {
+		return snapshot.version();
+	}
+
+	/**
+	 * Retrieves the cache of customer-dependent eligibility, for example to read its hit rate.
+	 * 
+	 * @return The customer eligibility cache.
+	 */
+	public CustomerEligibilityCache getCustomerEligibilityCache() {
+		return customerEligibilityCache;
 	}
 
+	/**
+	 * Retrieves the number of loaded discount rules.
+	 * 
+	 * @return The number of rules.
+	 */
+	public int getRuleCount() {
+		return snapshot.ruleSet().getRuleCount();
+	}
+
+	/**
+	 * The rules and their version, published together. Readers get both from one read of the volatile field, while new
+	 * rules are parsed and compiled before they are published, so no reader ever waits for a reload.
+	 */
+	private record CatalogSnapshot(DiscountRuleSet ruleSet, long version) {}
+
 	private void simulateCatalog() {
-		catalog.put("ITEM_BASED",
-				new DiscountInfoDTO("ITEM_BASED", new Amount("5.00"), "5 SEK off for buying more than 2 items"));
-		catalog.put("TOTAL_PERCENT",
-				new DiscountInfoDTO("TOTAL_PERCENT", new Amount("0.10"), "10% off for total price > 100"));
-		catalog.put("CUSTOMER_PERCENT",
-				new DiscountInfoDTO("CUSTOMER_PERCENT", new Amount("0.05"), "5% off for customer 114514"));
-	}
-}
\ No newline at end of file
+		try {
+			loadRules(SIMULATED_RULES.lines().toList());
+		} catch (DiscountRuleFormatException e) {
+			throw new IllegalStateException("The simulated discount rules are malformed", e);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package integration;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.LogHandler;
+
+/**
+ * Keeps a discount catalog in sync with a rule file. A background thread watches the file and reloads the catalog
+ * when it changes. The new rules are parsed and compiled on that thread and published in one step, so lanes keep
+ * using the previous rules until then and never wait for a reload. If the new rules cannot be read or parsed, the
+ * failure is logged and the previous rules are kept.
+ */
+public class DiscountCatalogWatcher implements AutoCloseable {
+	private static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+
+	private final DiscountCatalog discountCatalog;
+	private final Path rulesFile;
+	private final WatchService watchService;
+	private final Thread watcherThread;
+	private final LogHandler logger = LogHandler.getLogger();
+
+	private final AtomicLong reloadCount = new AtomicLong();
+	private final AtomicLong failedReloadCount = new AtomicLong();
+
+	/**
+	 * Creates a watcher for the specified rule file. Nothing is loaded until {@link #start()} is called.
+	 *
+	 * @param discountCatalog The catalog to load the rules into.
+	 * @param rulesFile       The file with the rule definitions.
+	 * @throws IOException if the directory of the file cannot be watched.
+	 */
+	public DiscountCatalogWatcher(DiscountCatalog discountCatalog, Path rulesFile) throws IOException {
+		this.discountCatalog = discountCatalog;
+		this.rulesFile = rulesFile.toAbsolutePath();
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.rulesFile.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+		this.watcherThread = new Thread(this::watch, "discount-catalog-watcher");
+		this.watcherThread.setDaemon(true);
+	}
+
+	/**
+	 * Loads the rule file and starts watching it for changes.
+	 *
+	 * @throws IOException                 if the file cannot be read.
+	 * @throws DiscountRuleFormatException if a rule cannot be parsed.
+	 */
+	public void start() throws IOException, DiscountRuleFormatException {
+		discountCatalog.loadRules(rulesFile);
+		watcherThread.start();
+	}
+
+	/**
+	 * Stops watching the rule file. The catalog keeps the rules that were last loaded.
+	 */
+	@Override
+	public void close() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			logger.logException(e);
+		}
+		watcherThread.interrupt();
+	}
+
+	/**
+	 * Retrieves the number of times the rules have been reloaded after a change.
+	 *
+	 * @return The number of successful reloads.
+	 */
+	public long getReloadCount() {
+		return reloadCount.get();
+	}
+
+	/**
+	 * Retrieves the number of reloads that failed and kept the previous rules.
+	 *
+	 * @return The number of failed reloads.
+	 */
+	public long getFailedReloadCount() {
+		return failedReloadCount.get();
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				if (concernsRulesFile(watchService.take())) {
+					waitUntilQuiet();
+					reload();
+				}
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e) {
+			/* The watcher has been closed. */
+		}
+	}
+
+	/**
+	 * Editors often write a file in several steps, so events are collected until the file has been quiet for a while.
+	 */
+	private void waitUntilQuiet() throws InterruptedException {
+		WatchKey key;
+		while ((key = watchService.poll(QUIET_PERIOD.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+			concernsRulesFile(key);
+		}
+	}
+
+	private boolean concernsRulesFile(WatchKey key) {
+		boolean concernsRulesFile = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW || rulesFile.getFileName().equals(event.context())) {
+				concernsRulesFile = true;
+			}
+		}
+		key.reset();
+		return concernsRulesFile;
+	}
+
+	private void reload() {
+		try {
+			discountCatalog.loadRules(rulesFile);
+			reloadCount.incrementAndGet();
+		} catch (IOException | DiscountRuleFormatException e) {
+			failedReloadCount.incrementAndGet();
+			logger.logException(e);
+		}
+	}
+}
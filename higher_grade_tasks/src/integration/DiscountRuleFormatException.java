@@ -0,0 +1,30 @@
+package integration;
+
+/**
+ * Thrown when a discount rule definition cannot be parsed.
+ */
+public class DiscountRuleFormatException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	private final int lineNumber;
+
+	/**
+	 * Creates a new instance describing what is wrong with the specified line.
+	 * 
+	 * @param lineNumber The number of the line that could not be parsed, starting at 1.
+	 * @param message    A message that describes what went wrong.
+	 */
+	DiscountRuleFormatException(int lineNumber, String message) {
+		super("Discount rule line %d: %s".formatted(lineNumber, message));
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * Retrieves the number of the line that could not be parsed.
+	 * 
+	 * @return The line number, starting at 1.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+}
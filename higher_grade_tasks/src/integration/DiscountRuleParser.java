@@ -0,0 +1,201 @@
+package integration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import dto.DiscountInfoDTO;
+import dto.PromotionInfoDTO;
+import model.Amount;
+import model.discount.DiscountType;
+import model.discount.PromotionType;
+
+/**
+ * Parses discount rule definitions. Each line is either empty, a comment starting with {@code #}, a customer segment
+ * or a rule:
+ * 
+ * <pre>
+ * segment;MEMBERS;114514,1001,1002
+ * rule;TOTAL_PERCENT;0.10;total&gt;100 &amp; segment=MEMBERS;10% off for members buying for more than 100
+ * </pre>
+ * 
+ * A rule has a discount type, a discount value, the conditions and a description. The conditions are joined by
+ * {@code &} and may be {@code items>N}, {@code items>=N}, {@code total>X}, {@code total>=X}, {@code customer=ID},
+ * {@code segment=NAME} or {@code sku=ITEM_ID}. A rule without conditions always applies. Segments must be defined
+ * before they are used. A rule may also list {@code group=NAME} among its conditions to join an exclusivity group, and
+ * at most one discount of each group is applied to a sale. A rule may join several groups.
+ * <p>
+ * A line may also define a promotion for a single item, with a promotion type, the item ID, a group size, a value and
+ * a description. Each item can have at most one promotion:
+ * 
+ * <pre>
+ * promotion;BUY_N_PAY_M;abc123;3;2;Buy 3 pay 2
+ * </pre>
+ */
+final class DiscountRuleParser {
+	private static final String GROUP_PREFIX = "group=";
+	private static final Pattern CONDITION = Pattern.compile("(\\w+)\\s*(>=|>|=)\\s*(\\S+)");
+
+	private final HashMap<String, Set<Integer>> segments = new HashMap<>();
+	private final ArrayList<DiscountRuleSet.Rule> rules = new ArrayList<>();
+	private final HashMap<String, PromotionInfoDTO> promotions = new HashMap<>();
+
+	private DiscountRuleParser() {
+	}
+
+	/**
+	 * Parses and compiles the specified rule definitions.
+	 * 
+	 * @param lines The lines of the rule definitions.
+	 * @return The compiled rules.
+	 * @throws DiscountRuleFormatException if a line cannot be parsed.
+	 */
+	static DiscountRuleSet parse(List<String> lines) throws DiscountRuleFormatException {
+		DiscountRuleParser parser = new DiscountRuleParser();
+		for (int i = 0; i < lines.size(); i++) {
+			parser.parseLine(i + 1, lines.get(i).strip());
+		}
+		return DiscountRuleSet.compile(parser.rules, parser.promotions);
+	}
+
+	private void parseLine(int lineNumber, String line) throws DiscountRuleFormatException {
+		if (line.isEmpty() || line.startsWith("#")) {
+			return;
+		}
+
+		int kindEnd = line.indexOf(';');
+		String kind = ((kindEnd < 0) ? line : line.substring(0, kindEnd)).strip();
+		switch (kind) {
+		case "segment" -> parseSegment(lineNumber, line.split(";", 3));
+		case "rule" -> parseRule(lineNumber, line.split(";", 5));
+		case "promotion" -> parsePromotion(lineNumber, line.split(";", 6));
+		default -> throw new DiscountRuleFormatException(lineNumber, "unknown definition '%s'".formatted(kind));
+		}
+	}
+
+	private void parseSegment(int lineNumber, String[] fields) throws DiscountRuleFormatException {
+		if (fields.length != 3) {
+			throw new DiscountRuleFormatException(lineNumber, "a segment needs a name and a list of customer IDs");
+		}
+
+		LinkedHashSet<Integer> customerIds = new LinkedHashSet<>();
+		for (String customerId : fields[2].split(",")) {
+			customerIds.add(parseInt(lineNumber, customerId.strip()));
+		}
+		segments.put(fields[1].strip(), Set.copyOf(customerIds));
+	}
+
+	private void parseRule(int lineNumber, String[] fields) throws DiscountRuleFormatException {
+		if (fields.length != 5) {
+			throw new DiscountRuleFormatException(lineNumber,
+					"a rule needs a type, a value, conditions and a description");
+		}
+
+		LinkedHashSet<RuleCondition> conditions = new LinkedHashSet<>();
+		LinkedHashSet<String> exclusivityGroups = new LinkedHashSet<>();
+		for (String condition : fields[3].split("&")) {
+			String trimmed = condition.strip();
+			if (trimmed.startsWith(GROUP_PREFIX)) {
+				exclusivityGroups.add(trimmed.substring(GROUP_PREFIX.length()).strip());
+			} else if (!trimmed.isEmpty()) {
+				conditions.add(parseCondition(lineNumber, trimmed));
+			}
+		}
+
+		DiscountInfoDTO discount = new DiscountInfoDTO(parseType(lineNumber, fields[1].strip()),
+				parseAmount(lineNumber, fields[2].strip()), fields[4].strip(), Set.copyOf(exclusivityGroups));
+		rules.add(new DiscountRuleSet.Rule(discount, List.copyOf(conditions)));
+	}
+
+	private void parsePromotion(int lineNumber, String[] fields) throws DiscountRuleFormatException {
+		if (fields.length != 6) {
+			throw new DiscountRuleFormatException(lineNumber,
+					"a promotion needs a type, an item ID, a group size, a value and a description");
+		}
+
+		PromotionType type;
+		try {
+			type = PromotionType.valueOf(fields[1].strip());
+		} catch (IllegalArgumentException e) {
+			throw new DiscountRuleFormatException(lineNumber, "unknown promotion type '%s'".formatted(fields[1]));
+		}
+		String itemId = fields[2].strip();
+		int groupSize = parseInt(lineNumber, fields[3].strip());
+		if (groupSize <= 0) {
+			throw new DiscountRuleFormatException(lineNumber,
+					"group size must be positive, was %d".formatted(groupSize));
+		}
+		Amount value = parseAmount(lineNumber, fields[4].strip());
+		if (type == PromotionType.BUY_N_PAY_M
+				&& (value.isNegative() || value.compareTo(new Amount(groupSize, 0)) >= 0)) {
+			throw new DiscountRuleFormatException(lineNumber,
+					"paid units must be at least 0 and fewer than %d, was %s".formatted(groupSize, value));
+		}
+
+		PromotionInfoDTO promotion = new PromotionInfoDTO(type, itemId, groupSize, value, fields[5].strip());
+		if (promotions.putIfAbsent(itemId, promotion) != null) {
+			throw new DiscountRuleFormatException(lineNumber, "item '%s' already has a promotion".formatted(itemId));
+		}
+	}
+
+	private RuleCondition parseCondition(int lineNumber, String condition) throws DiscountRuleFormatException {
+		Matcher matcher = CONDITION.matcher(condition);
+		if (!matcher.matches()) {
+			throw new DiscountRuleFormatException(lineNumber, "malformed condition '%s'".formatted(condition));
+		}
+
+		String attribute = matcher.group(1);
+		String operator = matcher.group(2);
+		String operand = matcher.group(3);
+		switch (attribute + operator) {
+		case "items>":
+			return new RuleCondition.MinimumItemCount(parseInt(lineNumber, operand) + 1);
+		case "items>=":
+			return new RuleCondition.MinimumItemCount(parseInt(lineNumber, operand));
+		case "total>":
+			return new RuleCondition.TotalAbove(parseAmount(lineNumber, operand), false);
+		case "total>=":
+			return new RuleCondition.TotalAbove(parseAmount(lineNumber, operand), true);
+		case "customer=":
+			return new RuleCondition.CustomerIn(Set.of(parseInt(lineNumber, operand)));
+		case "segment=":
+			Set<Integer> segment = segments.get(operand);
+			if (segment == null) {
+				throw new DiscountRuleFormatException(lineNumber, "undefined segment '%s'".formatted(operand));
+			}
+			return new RuleCondition.CustomerIn(segment);
+		case "sku=":
+			return new RuleCondition.ContainsItem(operand);
+		default:
+			throw new DiscountRuleFormatException(lineNumber, "unsupported condition '%s'".formatted(condition));
+		}
+	}
+
+	private static DiscountType parseType(int lineNumber, String value) throws DiscountRuleFormatException {
+		try {
+			return DiscountType.valueOf(value);
+		} catch (IllegalArgumentException e) {
+			throw new DiscountRuleFormatException(lineNumber, "unknown discount type '%s'".formatted(value));
+		}
+	}
+
+	private static int parseInt(int lineNumber, String value) throws DiscountRuleFormatException {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new DiscountRuleFormatException(lineNumber, "'%s' is not a whole number".formatted(value));
+		}
+	}
+
+	private static Amount parseAmount(int lineNumber, String value) throws DiscountRuleFormatException {
+		try {
+			return new Amount(value);
+		} catch (NumberFormatException e) {
+			throw new DiscountRuleFormatException(lineNumber, "'%s' is not an amount".formatted(value));
+		}
+	}
+}
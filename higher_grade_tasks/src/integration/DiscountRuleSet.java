@@ -0,0 +1,336 @@
+package integration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dto.DiscountDTO;
+import dto.DiscountInfoDTO;
+import dto.PromotionInfoDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * An immutable, compiled set of discount rules. Equal conditions of different rules are merged, and each distinct
+ * condition keeps a posting list of the rules that need it. The conditions are indexed by their trigger: a hash index
+ * from customer ID, sorted threshold arrays for the item count and the total price, and an inverted index from item
+ * ID. A sale is checked by looking up only the conditions it meets and counting, for each rule in their posting
+ * lists, how many of its conditions are met. A rule is eligible when all of its conditions are met, so the work is
+ * proportional to the matching conditions and rules, not to the size of the catalog. Line promotions are kept in a
+ * hash index from item ID.
+ */
+final class DiscountRuleSet {
+	private final DiscountInfoDTO[] discounts;
+	private final int[] conditionCounts;
+	private final int[] unconditionalRules;
+	private final int[][] postings;
+
+	private final HashMap<Integer, int[]> conditionsByCustomer;
+	private final int[] minimumItemCounts;
+	private final int[] itemCountConditions;
+	private final Amount[] totalThresholds;
+	private final boolean[] inclusiveTotalThresholds;
+	private final int[] totalConditions;
+	private final HashMap<String, int[]> conditionsByItem;
+	private final Map<String, PromotionInfoDTO> promotionsByItem;
+
+	private DiscountRuleSet(DiscountInfoDTO[] discounts, int[] conditionCounts, int[] unconditionalRules,
+			RuleCondition[] conditions, int[][] postings, Map<String, PromotionInfoDTO> promotionsByItem) {
+		this.discounts = discounts;
+		this.promotionsByItem = promotionsByItem;
+		this.conditionCounts = conditionCounts;
+		this.unconditionalRules = unconditionalRules;
+		this.postings = postings;
+
+		HashMap<Integer, ArrayList<Integer>> customerIndex = new HashMap<>();
+		HashMap<String, ArrayList<Integer>> itemIndex = new HashMap<>();
+		ArrayList<Integer> itemCountIndex = new ArrayList<>();
+		ArrayList<Integer> totalIndex = new ArrayList<>();
+		for (int conditionIndex = 0; conditionIndex < conditions.length; conditionIndex++) {
+			RuleCondition condition = conditions[conditionIndex];
+			if (condition instanceof RuleCondition.CustomerIn customerCondition) {
+				for (int customerId : customerCondition.customerIds()) {
+					customerIndex.computeIfAbsent(customerId, key -> new ArrayList<>()).add(conditionIndex);
+				}
+			} else if (condition instanceof RuleCondition.ContainsItem itemCondition) {
+				itemIndex.computeIfAbsent(itemCondition.itemId(), key -> new ArrayList<>()).add(conditionIndex);
+			} else if (condition instanceof RuleCondition.MinimumItemCount) {
+				itemCountIndex.add(conditionIndex);
+			} else if (condition instanceof RuleCondition.TotalAbove) {
+				totalIndex.add(conditionIndex);
+			}
+		}
+		this.conditionsByCustomer = toIntArrays(customerIndex);
+		this.conditionsByItem = toIntArrays(itemIndex);
+
+		/* Sorted so that the conditions met by a sale are always a prefix of the arrays. */
+		itemCountIndex.sort(Comparator.comparingInt(
+				conditionIndex -> ((RuleCondition.MinimumItemCount) conditions[conditionIndex]).minimum()));
+		this.itemCountConditions = toIntArray(itemCountIndex);
+		this.minimumItemCounts = new int[itemCountConditions.length];
+		for (int i = 0; i < itemCountConditions.length; i++) {
+			minimumItemCounts[i] = ((RuleCondition.MinimumItemCount) conditions[itemCountConditions[i]]).minimum();
+		}
+
+		Comparator<RuleCondition.TotalAbove> byThreshold = (first, second) -> first.threshold()
+				.compareTo(second.threshold());
+		totalIndex.sort(Comparator.comparing(conditionIndex -> (RuleCondition.TotalAbove) conditions[conditionIndex],
+				byThreshold.thenComparing(condition -> !condition.inclusive())));
+		this.totalConditions = toIntArray(totalIndex);
+		this.totalThresholds = new Amount[totalConditions.length];
+		this.inclusiveTotalThresholds = new boolean[totalConditions.length];
+		for (int i = 0; i < totalConditions.length; i++) {
+			RuleCondition.TotalAbove condition = (RuleCondition.TotalAbove) conditions[totalConditions[i]];
+			totalThresholds[i] = condition.threshold();
+			inclusiveTotalThresholds[i] = condition.inclusive();
+		}
+	}
+
+	/**
+	 * Compiles the specified rules and promotions.
+	 * 
+	 * @param rules      The rules in the order their discounts shall be returned.
+	 * @param promotions The line promotions by item ID.
+	 * @return The compiled rule set.
+	 */
+	static DiscountRuleSet compile(List<Rule> rules, Map<String, PromotionInfoDTO> promotions) {
+		DiscountInfoDTO[] discounts = new DiscountInfoDTO[rules.size()];
+		int[] conditionCounts = new int[rules.size()];
+		ArrayList<Integer> unconditionalRules = new ArrayList<>();
+		LinkedHashMap<RuleCondition, ArrayList<Integer>> rulesByCondition = new LinkedHashMap<>();
+
+		for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+			Rule rule = rules.get(ruleIndex);
+			discounts[ruleIndex] = rule.discount();
+			conditionCounts[ruleIndex] = rule.conditions().size();
+			if (rule.conditions().isEmpty()) {
+				unconditionalRules.add(ruleIndex);
+			}
+			for (RuleCondition condition : rule.conditions()) {
+				rulesByCondition.computeIfAbsent(condition, key -> new ArrayList<>()).add(ruleIndex);
+			}
+		}
+
+		RuleCondition[] conditions = rulesByCondition.keySet().toArray(new RuleCondition[0]);
+		int[][] postings = new int[conditions.length][];
+		for (int conditionIndex = 0; conditionIndex < conditions.length; conditionIndex++) {
+			postings[conditionIndex] = toIntArray(rulesByCondition.get(conditions[conditionIndex]));
+		}
+
+		return new DiscountRuleSet(discounts, conditionCounts, toIntArray(unconditionalRules), conditions, postings,
+				Map.copyOf(promotions));
+	}
+
+	/**
+	 * Finds the discounts of all rules whose conditions are met by the sale.
+	 * 
+	 * @param discountDTO The sale and customer information.
+	 * @return The eligible discounts, in the order the rules were defined.
+	 */
+	ArrayList<DiscountInfoDTO> findEligibleDiscounts(DiscountDTO discountDTO) {
+		return findEligibleDiscounts(discountDTO, computeCustomerEligibility(discountDTO.customerId()));
+	}
+
+	/**
+	 * Finds the discounts of all rules whose conditions are met by the sale, using a customer eligibility that was
+	 * computed earlier by this rule set.
+	 * 
+	 * @param discountDTO         The sale and customer information.
+	 * @param customerEligibility The customer-dependent part of eligibility for the customer of the sale.
+	 * @return The eligible discounts, in the order the rules were defined.
+	 */
+	ArrayList<DiscountInfoDTO> findEligibleDiscounts(DiscountDTO discountDTO, CustomerEligibility customerEligibility) {
+		EligibilityCounter counter = new EligibilityCounter();
+
+		for (int i = 0; i < customerEligibility.ruleIndexes().length; i++) {
+			counter.ruleConditionsMet(customerEligibility.ruleIndexes()[i],
+					customerEligibility.metConditionCounts()[i]);
+		}
+
+		int metItemCountConditions = countMinimumsMet(discountDTO.itemCount());
+		for (int i = 0; i < metItemCountConditions; i++) {
+			counter.conditionMet(itemCountConditions[i]);
+		}
+
+		int metTotalConditions = countThresholdsMet(discountDTO.totalPrice());
+		for (int i = 0; i < metTotalConditions; i++) {
+			counter.conditionMet(totalConditions[i]);
+		}
+
+		if (!conditionsByItem.isEmpty()) {
+			HashSet<String> seenItemIds = new HashSet<>();
+			for (SaleLineDTO line : discountDTO.saleLines()) {
+				int[] itemConditions = conditionsByItem.get(line.item().id());
+				if (itemConditions != null && seenItemIds.add(line.item().id())) {
+					for (int conditionIndex : itemConditions) {
+						counter.conditionMet(conditionIndex);
+					}
+				}
+			}
+		}
+
+		return counter.toDiscounts();
+	}
+
+	/**
+	 * Works out the customer-dependent part of eligibility, that is how many conditions of each rule the customer
+	 * meets through customer and segment conditions. It depends only on the customer and the rules, so it can be
+	 * cached for as long as this rule set is used.
+	 * 
+	 * @param customerId The customer ID.
+	 * @return The customer eligibility.
+	 */
+	CustomerEligibility computeCustomerEligibility(int customerId) {
+		int[] customerConditions = conditionsByCustomer.get(customerId);
+		if (customerConditions == null) {
+			return CustomerEligibility.NONE;
+		}
+
+		LinkedHashMap<Integer, Integer> metCountsByRule = new LinkedHashMap<>();
+		for (int conditionIndex : customerConditions) {
+			for (int ruleIndex : postings[conditionIndex]) {
+				metCountsByRule.merge(ruleIndex, 1, Integer::sum);
+			}
+		}
+		return new CustomerEligibility(toIntArray(new ArrayList<>(metCountsByRule.keySet())),
+				toIntArray(new ArrayList<>(metCountsByRule.values())));
+	}
+
+	/**
+	 * Finds the line promotion for an item.
+	 * 
+	 * @param itemId The ID of the item.
+	 * @return The promotion, or null if the item has no promotion.
+	 */
+	PromotionInfoDTO findPromotion(String itemId) {
+		return promotionsByItem.get(itemId);
+	}
+
+	/**
+	 * Retrieves the number of rules.
+	 * 
+	 * @return The number of rules in the set.
+	 */
+	int getRuleCount() {
+		return discounts.length;
+	}
+
+	/**
+	 * Retrieves the number of distinct conditions after equal conditions have been merged.
+	 * 
+	 * @return The number of distinct conditions.
+	 */
+	int getConditionCount() {
+		return postings.length;
+	}
+
+	private int countMinimumsMet(int itemCount) {
+		int low = 0;
+		int high = minimumItemCounts.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (minimumItemCounts[middle] <= itemCount) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private int countThresholdsMet(Amount totalPrice) {
+		int low = 0;
+		int high = totalThresholds.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int comparison = totalPrice.compareTo(totalThresholds[middle]);
+			if (comparison > 0 || (comparison == 0 && inclusiveTotalThresholds[middle])) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static HashMap<String, int[]> toIntArrays(Map<String, ArrayList<Integer>> index) {
+		HashMap<String, int[]> compacted = new HashMap<>();
+		index.forEach((key, values) -> compacted.put(key, toIntArray(values)));
+		return compacted;
+	}
+
+	private static HashMap<Integer, int[]> toIntArrays(HashMap<Integer, ArrayList<Integer>> index) {
+		HashMap<Integer, int[]> compacted = new HashMap<>();
+		index.forEach((key, values) -> compacted.put(key, toIntArray(values)));
+		return compacted;
+	}
+
+	private static int[] toIntArray(List<Integer> values) {
+		int[] array = new int[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Counts met conditions per rule for one sale. Only the rules that are touched are remembered, so the cost does
+	 * not depend on the number of rules in the catalog.
+	 */
+	private final class EligibilityCounter {
+		private final HashMap<Integer, int[]> metConditionCounts = new HashMap<>();
+		private int[] eligibleRules = Arrays.copyOf(unconditionalRules, Math.max(unconditionalRules.length, 4));
+		private int eligibleCount = unconditionalRules.length;
+
+		void conditionMet(int conditionIndex) {
+			for (int ruleIndex : postings[conditionIndex]) {
+				ruleConditionsMet(ruleIndex, 1);
+			}
+		}
+
+		/**
+		 * Counts met conditions of a rule. A rule that gets all its conditions at once is not remembered, which is the
+		 * common case of rules with a single condition.
+		 */
+		void ruleConditionsMet(int ruleIndex, int metCount) {
+			if (metCount == conditionCounts[ruleIndex]
+					|| (metConditionCounts.computeIfAbsent(ruleIndex, key -> new int[1])[0] += metCount)
+							== conditionCounts[ruleIndex]) {
+				ruleEligible(ruleIndex);
+			}
+		}
+
+		private void ruleEligible(int ruleIndex) {
+			if (eligibleCount == eligibleRules.length) {
+				eligibleRules = Arrays.copyOf(eligibleRules, eligibleCount * 2);
+			}
+			eligibleRules[eligibleCount++] = ruleIndex;
+		}
+
+		ArrayList<DiscountInfoDTO> toDiscounts() {
+			Arrays.sort(eligibleRules, 0, eligibleCount);
+			ArrayList<DiscountInfoDTO> eligibleDiscounts = new ArrayList<>(eligibleCount);
+			for (int i = 0; i < eligibleCount; i++) {
+				eligibleDiscounts.add(discounts[eligibleRules[i]]);
+			}
+			return eligibleDiscounts;
+		}
+	}
+
+	/**
+	 * A discount together with the conditions that must all be met for it to apply.
+	 */
+	record Rule(DiscountInfoDTO discount, List<RuleCondition> conditions) {}
+
+	/**
+	 * The rules a customer meets conditions of, and how many conditions of each rule are met.
+	 */
+	record CustomerEligibility(int[] ruleIndexes, int[] metConditionCounts) {
+		static final CustomerEligibility NONE = new CustomerEligibility(new int[0], new int[0]);
+	}
+}
@@ -0,0 +1,343 @@
+package integration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import dto.CatalogLoadDTO;
+import dto.ItemDTO;
+import model.Amount;
+
+/**
+ * Loads items into an {@link InventorySystem} from a UTF-8 CSV file with the columns id, name, gross price, VAT rate,
+ * description and quantity. Fields may be quoted with <code>"</code>, but records may not span several lines. A first
+ * line starting with the column name <code>id</code> is skipped as a header.
+ * <p>
+ * The file is split into chunks at line boundaries. Every chunk is memory mapped and parsed on its own, in parallel if
+ * requested. Prices are parsed straight from the bytes into an Amount without creating a BigDecimal, unless they have
+ * more than 18 digits.
+ */
+public class InventoryCatalogLoader {
+	private static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+	private static final int MAX_COMPACT_DIGITS = 18;
+	private static final Amount ONE = new Amount(1, 0);
+
+	private final InventorySystem inventorySystem;
+	private final long chunkSize;
+
+	/**
+	 * Creates a loader that adds the loaded items to the specified inventory.
+	 *
+	 * @param inventorySystem The inventory to load items into.
+	 */
+	public InventoryCatalogLoader(InventorySystem inventorySystem) {
+		this(inventorySystem, DEFAULT_CHUNK_SIZE);
+	}
+
+	InventoryCatalogLoader(InventorySystem inventorySystem, long chunkSize) {
+		this.inventorySystem = inventorySystem;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Loads all items in the specified file. Items that are already in the inventory are replaced.
+	 *
+	 * @param catalogFile The CSV file to load.
+	 * @param parallel    true if chunks of the file shall be parsed in parallel.
+	 * @return The number of loaded items, the time it took and how much the used heap grew.
+	 * @throws IOException if the file could not be read or contains a malformed record.
+	 */
+	public CatalogLoadDTO load(Path catalogFile, boolean parallel) throws IOException {
+		Runtime runtime = Runtime.getRuntime();
+		long usedHeapBefore = runtime.totalMemory() - runtime.freeMemory();
+		long startTime = System.nanoTime();
+		int loadedItemCount;
+
+		try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+			List<Chunk> chunks = splitIntoChunks(channel);
+			Stream<Chunk> chunkStream = parallel ? chunks.parallelStream() : chunks.stream();
+			try {
+				loadedItemCount = chunkStream.mapToInt(chunk -> loadChunk(channel, chunk)).sum();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		long loadTimeMillis = (System.nanoTime() - startTime) / 1_000_000;
+		long usedHeapAfter = runtime.totalMemory() - runtime.freeMemory();
+		return new CatalogLoadDTO(loadedItemCount, loadTimeMillis, Math.max(0, usedHeapAfter - usedHeapBefore));
+	}
+
+	private record Chunk(long start, long end) {}
+
+	private List<Chunk> splitIntoChunks(FileChannel channel) throws IOException {
+		ArrayList<Chunk> chunks = new ArrayList<>();
+		long fileSize = channel.size();
+		long start = 0;
+
+		while (start < fileSize) {
+			long end = Math.min(fileSize, start + chunkSize);
+			if (end < fileSize) {
+				end = findLineEnd(channel, end - 1, fileSize);
+			}
+			chunks.add(new Chunk(start, end));
+			start = end;
+		}
+
+		return chunks;
+	}
+
+	private long findLineEnd(FileChannel channel, long position, long fileSize) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+		while (position < fileSize) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+
+		return fileSize;
+	}
+
+	private int loadChunk(FileChannel channel, Chunk chunk) {
+		try {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(),
+					chunk.end() - chunk.start());
+			return loadRecords(new RecordReader(buffer, chunk.start()), chunk.start() == 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private int loadRecords(RecordReader reader, boolean mayStartWithHeader) throws IOException {
+		int loadedItemCount = 0;
+		boolean firstRecord = mayStartWithHeader;
+
+		while (reader.skipBlankLines()) {
+			long recordOffset = reader.offset();
+			String id = reader.readText();
+			if (firstRecord && "id".equalsIgnoreCase(id)) {
+				reader.skipRestOfRecord();
+				firstRecord = false;
+				continue;
+			}
+			firstRecord = false;
+
+			String name = reader.readText();
+			Amount grossPrice = reader.readAmount();
+			Amount vatRate = reader.readAmount();
+			String description = reader.readText();
+			int quantity = reader.readQuantity();
+			reader.endRecord(recordOffset);
+
+			Amount basePrice = grossPrice.divide(vatRate.add(ONE));
+			inventorySystem.addItem(new ItemDTO(id, name, basePrice, vatRate, description), quantity);
+			loadedItemCount++;
+		}
+
+		return loadedItemCount;
+	}
+
+	/*
+	 * Reads the fields of records from a mapped chunk, one field at a time, into a reusable scratch array.
+	 */
+	private static class RecordReader {
+		private final MappedByteBuffer buffer;
+		private final long chunkOffset;
+		private byte[] scratch = new byte[256];
+		private int fieldLength;
+		private boolean recordEnded;
+
+		RecordReader(MappedByteBuffer buffer, long chunkOffset) {
+			this.buffer = buffer;
+			this.chunkOffset = chunkOffset;
+		}
+
+		long offset() {
+			return chunkOffset + buffer.position();
+		}
+
+		boolean skipBlankLines() {
+			while (buffer.hasRemaining()) {
+				byte next = buffer.get(buffer.position());
+				if (next != '\n' && next != '\r') {
+					recordEnded = false;
+					return true;
+				}
+				buffer.get();
+			}
+			return false;
+		}
+
+		String readText() throws IOException {
+			readField();
+			return new String(scratch, 0, fieldLength, StandardCharsets.UTF_8);
+		}
+
+		Amount readAmount() throws IOException {
+			readField();
+			return parseAmount();
+		}
+
+		int readQuantity() throws IOException {
+			readField();
+			if (fieldLength == 0 || fieldLength > 9) {
+				throw malformed("quantity");
+			}
+			int quantity = 0;
+			for (int i = 0; i < fieldLength; i++) {
+				byte digit = scratch[i];
+				if (digit < '0' || digit > '9') {
+					throw malformed("quantity");
+				}
+				quantity = quantity * 10 + (digit - '0');
+			}
+			return quantity;
+		}
+
+		void endRecord(long recordOffset) throws IOException {
+			if (!recordEnded) {
+				throw new IOException("Too many fields in catalog record at byte %d".formatted(recordOffset));
+			}
+		}
+
+		void skipRestOfRecord() throws IOException {
+			while (!recordEnded) {
+				readField();
+			}
+		}
+
+		private void readField() throws IOException {
+			if (recordEnded) {
+				throw new IOException("Too few fields in catalog record ending at byte %d".formatted(offset()));
+			}
+			fieldLength = 0;
+
+			if (buffer.hasRemaining() && buffer.get(buffer.position()) == '"') {
+				readQuotedField();
+			} else {
+				while (buffer.hasRemaining() && !isDelimiter(buffer.get(buffer.position()))) {
+					append(buffer.get());
+				}
+			}
+
+			consumeDelimiter();
+		}
+
+		private void readQuotedField() throws IOException {
+			buffer.get();
+			while (true) {
+				if (!buffer.hasRemaining()) {
+					throw malformed("quoted field");
+				}
+				byte next = buffer.get();
+				if (next == '"') {
+					if (buffer.hasRemaining() && buffer.get(buffer.position()) == '"') {
+						append(buffer.get());
+					} else {
+						return;
+					}
+				} else if (next == '\n') {
+					throw malformed("quoted field");
+				} else {
+					append(next);
+				}
+			}
+		}
+
+		private void consumeDelimiter() throws IOException {
+			if (!buffer.hasRemaining()) {
+				recordEnded = true;
+				return;
+			}
+			byte delimiter = buffer.get();
+			if (delimiter == ',') {
+				return;
+			}
+			if (delimiter == '\r' && buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+				buffer.get();
+			} else if (delimiter != '\n' && delimiter != '\r') {
+				throw malformed("field");
+			}
+			recordEnded = true;
+		}
+
+		private boolean isDelimiter(byte next) {
+			return next == ',' || next == '\n' || next == '\r';
+		}
+
+		private void append(byte next) {
+			if (fieldLength == scratch.length) {
+				scratch = Arrays.copyOf(scratch, scratch.length * 2);
+			}
+			scratch[fieldLength++] = next;
+		}
+
+		private Amount parseAmount() throws IOException {
+			int position = 0;
+			boolean negative = false;
+			if (fieldLength > 0 && scratch[0] == '-') {
+				negative = true;
+				position++;
+			}
+			if (position == fieldLength) {
+				throw malformed("amount");
+			}
+
+			long unscaled = 0;
+			int scale = 0;
+			int digitCount = 0;
+			boolean seenPoint = false;
+
+			for (; position < fieldLength; position++) {
+				byte next = scratch[position];
+				if (next == '.' && !seenPoint) {
+					seenPoint = true;
+					continue;
+				}
+				if (next < '0' || next > '9') {
+					throw malformed("amount");
+				}
+				if (digitCount == MAX_COMPACT_DIGITS) {
+					return parseLongAmount();
+				}
+				unscaled = unscaled * 10 + (next - '0');
+				digitCount++;
+				if (seenPoint) {
+					scale++;
+				}
+			}
+
+			return new Amount(negative ? -unscaled : unscaled, scale);
+		}
+
+		private Amount parseLongAmount() throws IOException {
+			try {
+				return new Amount(new String(scratch, 0, fieldLength, StandardCharsets.US_ASCII));
+			} catch (NumberFormatException e) {
+				throw malformed("amount");
+			}
+		}
+
+		private IOException malformed(String part) {
+			return new IOException("Malformed %s in catalog record before byte %d".formatted(part, offset()));
+		}
+	}
+}
@@ -1,28 +1,43 @@
 package integration;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import dto.InventoryUpdateDTO;
 import dto.ItemDTO;
 import dto.SaleDTO;
+import dto.SaleLineDTO;
 import model.Amount;
 
 /**
  * This class simulates an inventory system that stores the items available for sale. It provides methods to retrieve
- * item information and update the inventory based on sales.
+ * item information and update the inventory based on sales. Items may be retrieved from several lanes at the same
+ * time.
  */
 public class InventorySystem {
-	private final HashMap<String, InventoryItem> inventory;
+	private final ConcurrentHashMap<String, InventoryItem> inventory;
+	private volatile ItemCache itemCache;
+	private volatile ItemIdFilter itemIdFilter;
+	private volatile CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofSeconds(30));
 
 	/**
 	 * Constructor for the InventorySystem class.
 	 */
 	public InventorySystem() {
-		inventory = new HashMap<>();
+		inventory = new ConcurrentHashMap<>();
 		simulateInventory();
 	}
 
 	/**
-	 * Retrieves the item from the inventory based on the item ID.
+	 * Retrieves the item from the inventory based on the item ID. If an item cache is used, cached items are returned
+	 * without asking the database.
 	 * 
 	 * @param itemId The ID of the item to be retrieved.
 	 * @return The object containing information about this item. Null if not found.
@@ -30,17 +45,142 @@ public class InventorySystem {
 	 * @throws ItemNotFoundException    if the item is not found in the inventory.
 	 */
 	public ItemDTO retrieveItem(String itemId) throws DatabaseFailureException, ItemNotFoundException {
+		ItemDTO item = lookupItem(itemId);
+
+		if (item == null) {
+			throw new ItemNotFoundException(itemId);
+		}
+
+		return item;
+	}
+
+	/**
+	 * Retrieves the item from the inventory based on the item ID, without throwing if the item does not exist. This
+	 * is the cheaper call when unknown IDs are common.
+	 * 
+	 * @param itemId The ID of the item to be retrieved.
+	 * @return The item, or an empty Optional if it is not found in the inventory.
+	 * @throws DatabaseFailureException if the database server is not running.
+	 */
+	public Optional<ItemDTO> findItem(String itemId) throws DatabaseFailureException {
+		return Optional.ofNullable(lookupItem(itemId));
+	}
+
+	/**
+	 * Builds a filter of all item IDs in the inventory and uses it to reject unknown IDs before the cache or the
+	 * database is asked. Items added later are added to the filter as well.
+	 * 
+	 * @param falsePositiveRate The wanted probability that an unknown ID still reaches the database.
+	 */
+	public void useNegativeLookupFilter(double falsePositiveRate) {
+		ItemIdFilter filter = new ItemIdFilter(inventory.size(), falsePositiveRate);
+		inventory.keySet().forEach(filter::add);
+		itemIdFilter = filter;
+		/* Adds items that were added while the filter was built but before it was published. */
+		inventory.keySet().forEach(filter::add);
+	}
+
+	/**
+	 * Places a cache in front of the database, or removes the cache.
+	 * 
+	 * @param itemCache The cache to use, or null to always ask the database.
+	 */
+	public void useItemCache(ItemCache itemCache) {
+		this.itemCache = itemCache;
+	}
+
+	/**
+	 * Places a circuit breaker in front of the database, or removes it. By default the circuit opens after 5 failures
+	 * in a row and lets a probe call through after 30 seconds.
+	 * 
+	 * @param circuitBreaker The circuit breaker to use, or null to always call the database.
+	 */
+	public void useCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Changes the price of an item. The item is removed from the cache, so the next lookup returns the new price.
+	 * 
+	 * @param itemId   The ID of the item.
+	 * @param newPrice The new price, excluding VAT.
+	 * @throws ItemNotFoundException if the item is not found in the inventory.
+	 */
+	public void updatePrice(String itemId, Amount newPrice) throws ItemNotFoundException {
+		InventoryItem inventoryItem = inventory.get(itemId);
+		if (inventoryItem == null) {
+			throw new ItemNotFoundException(itemId);
+		}
+
+		ItemDTO item = inventoryItem.item;
+		inventoryItem.item = new ItemDTO(item.id(), item.name(), newPrice, item.vat(), item.description());
+
+		ItemCache cache = itemCache;
+		if (cache != null) {
+			cache.invalidate(itemId);
+		}
+	}
+
+	/**
+	 * Looks up an item in the database. This is the call that the item cache and the negative lookup filter save.
+	 * 
+	 * @param itemId The ID of the item to be retrieved.
+	 * @return The object containing information about this item, or null if it is not found.
+	 * @throws DatabaseFailureException if the database server is not running.
+	 */
+	protected ItemDTO fetchItem(String itemId) throws DatabaseFailureException {
 		if ("fail114514".equals(itemId)) {
 			throw new DatabaseFailureException("Database server is not running");
 		}
 
 		InventoryItem item = inventory.get(itemId);
+		return (item == null) ? null : item.item;
+	}
 
-		if (item == null) {
-			throw new ItemNotFoundException(itemId);
+	private ItemDTO lookupItem(String itemId) throws DatabaseFailureException {
+		ItemIdFilter filter = itemIdFilter;
+		if (filter != null && !filter.mightContain(itemId)) {
+			return null;
+		}
+
+		ItemCache cache = itemCache;
+		long cacheGeneration = 0;
+		if (cache != null) {
+			ItemDTO cachedItem = cache.get(itemId);
+			if (cachedItem != null) {
+				return cachedItem;
+			}
+			cacheGeneration = cache.getGeneration();
+		}
+
+		ItemDTO item = fetchThroughCircuitBreaker(itemId);
+
+		if (cache != null && item != null) {
+			/* Not cached if the item was changed during the fetch, since the fetched item may be the old one. */
+			cache.putIfNotInvalidated(item, cacheGeneration);
+		}
+		return item;
+	}
+
+	private ItemDTO fetchThroughCircuitBreaker(String itemId) throws DatabaseFailureException {
+		CircuitBreaker breaker = circuitBreaker;
+		if (breaker == null) {
+			return fetchItem(itemId);
 		}
 
-		return item.item;
+		breaker.acquirePermission();
+		boolean succeeded = false;
+		try {
+			ItemDTO item = fetchItem(itemId);
+			succeeded = true;
+			return item;
+		} finally {
+			if (succeeded) {
+				breaker.recordSuccess();
+			} else {
+				breaker.recordFailure();
+			}
+		}
 	}
 
 	/**
@@ -48,26 +188,97 @@ public class InventorySystem {
 	 * for simulation purposes and does not represent the actual external inventory.
 	 * 
 	 * @param saleDTO The sale information.
+	 * @return The number of updated items and the IDs that were not found in the inventory.
+	 */
+	public InventoryUpdateDTO updateInventory(SaleDTO saleDTO) {
+		return updateInventory(List.of(saleDTO));
+	}
+
+	/**
+	 * Updates the inventory based on several sales at once. The sold quantities are first summed per item ID, so the
+	 * stock of each item is reduced only once no matter how many sales or lines contain it. IDs that are not in the
+	 * inventory are reported in the result and do not stop the update of the other items.
+	 * 
+	 * @param sales The sales to update the inventory with.
+	 * @return The number of updated items and the IDs that were not found in the inventory.
+	 */
+	public InventoryUpdateDTO updateInventory(Collection<SaleDTO> sales) {
+		LinkedHashMap<String, Integer> soldQuantities = new LinkedHashMap<>();
+
+		for (SaleDTO sale : sales) {
+			for (SaleLineDTO soldLine : sale.saleLines()) {
+				soldQuantities.merge(soldLine.item().id(), soldLine.quantity(), Integer::sum);
+			}
+		}
+
+		int updatedItemCount = 0;
+		ArrayList<String> unknownItemIds = new ArrayList<>();
+
+		for (Map.Entry<String, Integer> sold : soldQuantities.entrySet()) {
+			InventoryItem item = inventory.get(sold.getKey());
+			if (item == null) {
+				unknownItemIds.add(sold.getKey());
+			} else {
+				item.reduceQuantity(sold.getValue());
+				updatedItemCount++;
+			}
+		}
+
+		return new InventoryUpdateDTO(updatedItemCount, unknownItemIds);
+	}
+
+	/**
+	 * Adds an item to the inventory, replacing any item with the same ID.
+	 * 
+	 * @param item     The item to add.
+	 * @param quantity The number of units in stock.
 	 */
-	public void updateInventory(SaleDTO saleDTO) {
-		for (ItemDTO soldItem : saleDTO.boughtItems()) {
-			InventoryItem item = inventory.get(soldItem.id());
-			item.reduceQuantity(1);
+	void addItem(ItemDTO item, int quantity) {
+		inventory.put(item.id(), new InventoryItem(item, quantity));
+
+		ItemIdFilter filter = itemIdFilter;
+		if (filter != null) {
+			filter.add(item.id());
 		}
+		ItemCache cache = itemCache;
+		if (cache != null) {
+			cache.invalidate(item.id());
+		}
+	}
+
+	/**
+	 * Retrieves the number of units in stock of the specified item.
+	 * 
+	 * @param itemId The ID of the item.
+	 * @return The number of units in stock, or 0 if the item is not in the inventory.
+	 */
+	int getQuantity(String itemId) {
+		InventoryItem item = inventory.get(itemId);
+		return (item == null) ? 0 : item.quantity.get();
 	}
 
 	/* Below are only simulation code. */
 	private static class InventoryItem {
-		private final ItemDTO item;
-		private int quantity;
+		private volatile ItemDTO item;
+		private final AtomicInteger quantity;
 
 		public InventoryItem(ItemDTO item, int quantity) {
 			this.item = item;
-			this.quantity = quantity;
+			this.quantity = new AtomicInteger(quantity);
 		}
 
-		public void reduceQuantity(int amount) {
-			quantity = Math.max(0, quantity - amount);
+		/*
+		 * Lowers the stock by the specified amount, but never below zero, and returns the number of units actually
+		 * removed. Lanes selling the same item retry on a lost race instead of blocking each other.
+		 */
+		public int reduceQuantity(int amount) {
+			while (true) {
+				int current = quantity.get();
+				int reduced = Math.max(0, current - amount);
+				if (reduced == current || quantity.compareAndSet(current, reduced)) {
+					return current - reduced;
+				}
+			}
 		}
 	}
 
@@ -89,8 +300,8 @@ public class InventorySystem {
 				vatAmount,
 				"YouGoGo Blueberry 240g, low sugar youghurt, blueberry flavour");
 
-		inventory.put(item1.id(), new InventoryItem(item1, 2));
-		inventory.put(item2.id(), new InventoryItem(item2, 2));
+		addItem(item1, 2);
+		addItem(item2, 2);
 	}
 
 	private Amount calculateOriginalPrice(Amount fullPrice, Amount vatRate) {
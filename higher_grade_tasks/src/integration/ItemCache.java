@@ -0,0 +1,180 @@
+package integration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import dto.ItemDTO;
+
+/**
+ * A size-bounded cache of items retrieved from the inventory database. When the cache is full, the least recently
+ * used item is evicted. Items may also expire a fixed time after they were cached. The cache can be shared by
+ * several lanes.
+ */
+public class ItemCache {
+	private final int maxSize;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+	private final LinkedHashMap<String, CachedItem> entries;
+	private long generation;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Creates a cache where items never expire.
+	 *
+	 * @param maxSize The maximum number of cached items.
+	 */
+	public ItemCache(int maxSize) {
+		this(maxSize, Duration.ZERO);
+	}
+
+	/**
+	 * Creates a cache where items expire after the specified time.
+	 *
+	 * @param maxSize    The maximum number of cached items.
+	 * @param timeToLive How long an item stays cached, or zero if items never expire.
+	 */
+	public ItemCache(int maxSize, Duration timeToLive) {
+		this(maxSize, timeToLive, System::nanoTime);
+	}
+
+	ItemCache(int maxSize, Duration timeToLive, LongSupplier clock) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive, was %d".formatted(maxSize));
+		}
+		this.maxSize = maxSize;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.clock = clock;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedItem> eldest) {
+				if (size() > ItemCache.this.maxSize) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Retrieves a cached item.
+	 *
+	 * @param itemId The ID of the item.
+	 * @return The cached item, or null if it is not cached or has expired.
+	 */
+	public synchronized ItemDTO get(String itemId) {
+		CachedItem cached = entries.get(itemId);
+		if (cached != null && isExpired(cached)) {
+			entries.remove(itemId);
+			evictionCount.incrementAndGet();
+			cached = null;
+		}
+
+		if (cached == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return cached.item;
+	}
+
+	/**
+	 * Adds an item to the cache, evicting the least recently used item if the cache is full.
+	 *
+	 * @param item The item to cache.
+	 */
+	public synchronized void put(ItemDTO item) {
+		entries.put(item.id(), new CachedItem(item, clock.getAsLong()));
+	}
+
+	/**
+	 * Adds an item to the cache unless any item has been invalidated since the specified generation. An item fetched
+	 * from the database while it was changed is then not cached, since it may already be out of date.
+	 *
+	 * @param item       The item to cache.
+	 * @param generation The generation returned by {@link #getGeneration()} before the item was fetched.
+	 * @return true if the item was cached.
+	 */
+	public synchronized boolean putIfNotInvalidated(ItemDTO item, long generation) {
+		if (generation != this.generation) {
+			return false;
+		}
+		put(item);
+		return true;
+	}
+
+	/**
+	 * Retrieves the generation of the cache, which changes every time an item is invalidated.
+	 *
+	 * @return The current generation.
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Removes an item from the cache, for example because its price has changed.
+	 *
+	 * @param itemId The ID of the item.
+	 */
+	public synchronized void invalidate(String itemId) {
+		entries.remove(itemId);
+		generation++;
+	}
+
+	/**
+	 * Removes all items from the cache.
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		generation++;
+	}
+
+	/**
+	 * Retrieves the number of lookups that found a cached item.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Retrieves the number of lookups that did not find a cached item.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Retrieves the number of items removed because the cache was full or the item had expired.
+	 *
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Retrieves the number of currently cached items.
+	 *
+	 * @return The number of cached items.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private boolean isExpired(CachedItem cached) {
+		return timeToLiveNanos > 0 && clock.getAsLong() - cached.cachedAt >= timeToLiveNanos;
+	}
+
+	private record CachedItem(ItemDTO item, long cachedAt) {}
+}
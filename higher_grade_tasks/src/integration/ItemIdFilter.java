@@ -0,0 +1,84 @@
+package integration;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over item IDs. It answers whether an ID may be in the catalog: a negative answer is always correct,
+ * while a positive answer is wrong with a small, configurable probability. This lets lookups of unknown IDs be rejected
+ * without asking the database. IDs may be added from several threads.
+ */
+public class ItemIdFilter {
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * Creates an empty filter sized for the specified number of IDs.
+	 *
+	 * @param expectedIdCount   The number of IDs the filter is expected to hold.
+	 * @param falsePositiveRate The wanted probability that an unknown ID is reported as possibly known.
+	 * @throws IllegalArgumentException if the rate is not between 0 and 1.
+	 */
+	public ItemIdFilter(int expectedIdCount, double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1, was " + falsePositiveRate);
+		}
+		int idCount = Math.max(1, expectedIdCount);
+		double ln2 = Math.log(2);
+		long wantedBits = (long) Math.ceil(-idCount * Math.log(falsePositiveRate) / (ln2 * ln2));
+		int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (wantedBits + 63) / 64));
+
+		this.bits = new AtomicLongArray(wordCount);
+		this.bitCount = (long) wordCount * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / idCount * ln2));
+	}
+
+	/**
+	 * Adds an ID to the filter.
+	 *
+	 * @param itemId The ID to add.
+	 */
+	public void add(String itemId) {
+		long firstHash = itemId.hashCode();
+		long secondHash = mix(firstHash);
+
+		for (int i = 0; i < hashCount; i++) {
+			long bit = bitIndex(firstHash, secondHash, i);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current = bits.get(word);
+			while ((current & mask) == 0 && !bits.weakCompareAndSetVolatile(word, current, current | mask)) {
+				current = bits.get(word);
+			}
+		}
+	}
+
+	/**
+	 * Checks if an ID may have been added to the filter.
+	 *
+	 * @param itemId The ID to check.
+	 * @return false if the ID has certainly not been added, true if it probably has.
+	 */
+	public boolean mightContain(String itemId) {
+		long firstHash = itemId.hashCode();
+		long secondHash = mix(firstHash);
+
+		for (int i = 0; i < hashCount; i++) {
+			long bit = bitIndex(firstHash, secondHash, i);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long bitIndex(long firstHash, long secondHash, int hashNumber) {
+		return Math.floorMod(firstHash + hashNumber * secondHash, bitCount);
+	}
+
+	private static long mix(long hash) {
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return (hash ^ (hash >>> 33)) | 1;
+	}
+}
@@ -1,15 +1,34 @@
 package integration;
 
 /**
- * Thrown when no item with the specified identifier is found in the inventory.
+ * Thrown when no item with the specified identifier is found in the inventory. A missing item is an expected outcome
+ * of mistyped or foreign barcodes, so the exception does not record a stack trace and its message is only created when
+ * it is asked for.
  */
 public class ItemNotFoundException extends Exception {
+	private final String itemId;
+
 	/**
 	 * Creates a new instance with a message about the missing item.
 	 * 
 	 * @param itemId The identifier that was not found.
 	 */
 	ItemNotFoundException(String itemId) {
-		super("No item with identifier '%s' was found in inventory".formatted(itemId));
+		super(null, null, false, false);
+		this.itemId = itemId;
+	}
+
+	/**
+	 * Retrieves the identifier that was not found.
+	 * 
+	 * @return The missing item identifier.
+	 */
+	public String getItemId() {
+		return itemId;
+	}
+
+	@Override
+	public String getMessage() {
+		return "No item with identifier '%s' was found in inventory".formatted(itemId);
 	}
-}
\ No newline at end of file
+}
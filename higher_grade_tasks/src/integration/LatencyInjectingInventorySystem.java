@@ -0,0 +1,33 @@
+package integration;
+
+import java.time.Duration;
+
+import dto.ItemDTO;
+
+/**
+ * A local stand-in for a remote inventory database that waits a fixed time on every item lookup. It is used to
+ * measure the effect of an {@link ItemCache} without a real database.
+ */
+public class LatencyInjectingInventorySystem extends InventorySystem {
+	private final Duration latency;
+
+	/**
+	 * Creates an inventory with the simulated items, where every lookup takes at least the specified time.
+	 *
+	 * @param latency The time each lookup waits before answering.
+	 */
+	public LatencyInjectingInventorySystem(Duration latency) {
+		this.latency = latency;
+	}
+
+	@Override
+	protected ItemDTO fetchItem(String itemId) throws DatabaseFailureException {
+		try {
+			Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DatabaseFailureException("Interrupted while waiting for the database");
+		}
+		return super.fetchItem(itemId);
+	}
+}
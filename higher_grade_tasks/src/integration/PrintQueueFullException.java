@@ -0,0 +1,27 @@
+package integration;
+
+/**
+ * Thrown when a receipt cannot be accepted by the print spooler because its queue is full.
+ */
+public class PrintQueueFullException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new instance representing the condition described in the specified message.
+	 * 
+	 * @param message A message that describes what went wrong.
+	 */
+	PrintQueueFullException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Creates a new instance representing the condition described in the specified message and cause.
+	 * 
+	 * @param message A message that describes what went wrong.
+	 * @param cause   The reason the receipt could not be accepted.
+	 */
+	PrintQueueFullException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
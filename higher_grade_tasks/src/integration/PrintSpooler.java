@@ -0,0 +1,337 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dto.ReceiptDTO;
+import util.LogHandler;
+
+/**
+ * A printer that accepts receipts into a bounded queue and prints them on its own thread, so a slow printer does not
+ * stall the lanes. The printing thread takes every receipt that is waiting, up to a batch size, and prints them with a
+ * single write. What happens when the queue is full is decided by the {@link OverflowPolicy}. The spooler must be
+ * closed to print the receipts that are still queued.
+ */
+public class PrintSpooler extends Printer implements AutoCloseable {
+	/**
+	 * What the spooler does with a receipt when its queue is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The lane waits until there is room in the queue.
+		 */
+		BLOCK,
+		/**
+		 * The receipt is written to the overflow file at once, to be printed later.
+		 */
+		DROP_TO_DISK,
+		/**
+		 * The receipt is rejected with a {@link PrintQueueFullException}.
+		 */
+		REJECT
+	}
+
+	private static final int MAX_BATCH_SIZE = 32;
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private final ArrayBlockingQueue<SpooledReceipt> queue;
+	private final OverflowPolicy overflowPolicy;
+	private final Path overflowFile;
+	private final Charset charset;
+	private final Thread printingThread;
+	private final LogHandler logger = LogHandler.getLogger();
+	private final ReentrantReadWriteLock acceptLock = new ReentrantReadWriteLock();
+	private volatile boolean closed;
+	private final Object overflowLock = new Object();
+	private Printer overflowPrinter;
+	private FileChannel overflowChannel;
+	private ReceiptArchive overflowArchive;
+
+	private final AtomicLong maxQueueDepth = new AtomicLong();
+	private final LongAdder printedCount = new LongAdder();
+	private final LongAdder batchCount = new LongAdder();
+	private final LongAdder spilledCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+	private final LongAdder failedCount = new LongAdder();
+	private final LongAdder totalLatencyNanos = new LongAdder();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	/**
+	 * Creates a spooler that prints to the console.
+	 *
+	 * @param capacity       The number of receipts the queue can hold.
+	 * @param overflowPolicy What to do with a receipt when the queue is full.
+	 * @param overflowFile   The file that receipts are written to with {@link OverflowPolicy#DROP_TO_DISK}. It is
+	 *                       only created when needed, and may be null with the other policies.
+	 */
+	public PrintSpooler(int capacity, OverflowPolicy overflowPolicy, Path overflowFile) {
+		this(capacity, overflowPolicy, overflowFile, null, Charset.defaultCharset());
+	}
+
+	PrintSpooler(int capacity, OverflowPolicy overflowPolicy, Path overflowFile, WritableByteChannel channel,
+			Charset charset) {
+		super(channel, charset);
+		if (overflowPolicy == OverflowPolicy.DROP_TO_DISK && overflowFile == null) {
+			throw new IllegalArgumentException("An overflow file is needed to drop receipts to disk");
+		}
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.overflowPolicy = overflowPolicy;
+		this.overflowFile = overflowFile;
+		this.charset = charset;
+		this.printingThread = new Thread(this::printQueuedReceipts, "print-spooler");
+		this.printingThread.setDaemon(true);
+		this.printingThread.start();
+	}
+
+	/**
+	 * Queues the receipt for printing and returns at once, unless the queue is full and the overflow policy is
+	 * {@link OverflowPolicy#BLOCK}.
+	 * 
+	 * @param receiptDTO The receipt information to be printed.
+	 * @throws PrintQueueFullException if the queue is full and the receipt could not be handled as the overflow policy
+	 *                                 says.
+	 * @throws IllegalStateException   if the spooler has been closed.
+	 */
+	@Override
+	public void printReceipt(ReceiptDTO receiptDTO) {
+		/*
+		 * Receipts are queued under the read lock and close() takes the write lock, so no receipt is queued after
+		 * the printing thread has been told to stop. A lane blocked on a full queue still gets its receipt queued,
+		 * since the printing thread keeps running until close() has the lock.
+		 */
+		acceptLock.readLock().lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("The print spooler has been closed");
+			}
+
+			SpooledReceipt spooled = new SpooledReceipt(receiptDTO, System.nanoTime());
+			if (!queue.offer(spooled)) {
+				handleOverflow(spooled);
+			}
+			maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+		} finally {
+			acceptLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Stops accepting receipts, prints the receipts that are still queued and closes the overflow file.
+	 */
+	@Override
+	public void close() {
+		acceptLock.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			acceptLock.writeLock().unlock();
+		}
+		try {
+			printingThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (overflowLock) {
+			if (overflowChannel != null) {
+				try {
+					overflowChannel.close();
+				} catch (IOException e) {
+					logger.logException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps every receipt printed from now on in the specified archive, or stops archiving receipts. Receipts saved to
+	 * the overflow file are archived as well.
+	 * 
+	 * @param archive The archive of printed receipts, or null to stop archiving.
+	 */
+	@Override
+	public void useArchive(ReceiptArchive archive) {
+		super.useArchive(archive);
+		synchronized (overflowLock) {
+			overflowArchive = archive;
+			if (overflowPrinter != null) {
+				overflowPrinter.useArchive(archive);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of receipts waiting to be printed.
+	 *
+	 * @return The current queue depth.
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Retrieves the largest number of receipts that have been waiting at the same time.
+	 *
+	 * @return The maximum queue depth.
+	 */
+	public long getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * Retrieves the number of printed receipts.
+	 *
+	 * @return The number of printed receipts.
+	 */
+	public long getPrintedCount() {
+		return printedCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of writes, each printing one or more receipts.
+	 *
+	 * @return The number of batches.
+	 */
+	public long getBatchCount() {
+		return batchCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of receipts written to the overflow file.
+	 *
+	 * @return The number of spilled receipts.
+	 */
+	public long getSpilledCount() {
+		return spilledCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of receipts rejected because the queue was full.
+	 *
+	 * @return The number of rejected receipts.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of receipts that could not be printed. The failures are logged.
+	 *
+	 * @return The number of failed receipts.
+	 */
+	public long getFailedCount() {
+		return failedCount.sum();
+	}
+
+	/**
+	 * Retrieves the average time from a receipt being queued until it was printed.
+	 *
+	 * @return The average latency in nanoseconds, or 0 if nothing has been printed.
+	 */
+	public long getAverageLatencyNanos() {
+		long printed = printedCount.sum();
+		return (printed == 0) ? 0 : totalLatencyNanos.sum() / printed;
+	}
+
+	/**
+	 * Retrieves the longest time from a receipt being queued until it was printed.
+	 *
+	 * @return The maximum latency in nanoseconds.
+	 */
+	public long getMaxLatencyNanos() {
+		return maxLatencyNanos.get();
+	}
+
+	private void handleOverflow(SpooledReceipt spooled) {
+		switch (overflowPolicy) {
+		case BLOCK -> {
+			try {
+				queue.put(spooled);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				rejectedCount.increment();
+				throw new PrintQueueFullException("Interrupted while waiting for room in the print queue", e);
+			}
+		}
+		case DROP_TO_DISK -> spillToDisk(spooled.receipt());
+		case REJECT -> {
+			rejectedCount.increment();
+			throw new PrintQueueFullException("The print queue is full");
+		}
+		}
+	}
+
+	private void spillToDisk(ReceiptDTO receiptDTO) {
+		/* Not synchronized on this, since the printing thread holds that lock while it is writing. */
+		synchronized (overflowLock) {
+			try {
+				if (overflowPrinter == null) {
+					overflowChannel = FileChannel.open(overflowFile, StandardOpenOption.CREATE,
+							StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+					overflowPrinter = new Printer(overflowChannel, charset);
+					overflowPrinter.useArchive(overflowArchive);
+				}
+				overflowPrinter.printReceipt(receiptDTO);
+				spilledCount.increment();
+			} catch (IOException | RuntimeException e) {
+				rejectedCount.increment();
+				throw new PrintQueueFullException("The print queue is full and the receipt could not be saved", e);
+			}
+		}
+	}
+
+	private void printQueuedReceipts() {
+		ArrayList<SpooledReceipt> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		ArrayList<ReceiptDTO> receipts = new ArrayList<>(MAX_BATCH_SIZE);
+		while (!closed || !queue.isEmpty()) {
+			try {
+				SpooledReceipt first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+			} catch (InterruptedException e) {
+				/* Only close() stops the printing thread, so interruption is ignored. */
+				continue;
+			}
+
+			for (SpooledReceipt spooled : batch) {
+				receipts.add(spooled.receipt());
+			}
+			printBatch(batch, receipts);
+			batch.clear();
+			receipts.clear();
+		}
+	}
+
+	private void printBatch(ArrayList<SpooledReceipt> batch, ArrayList<ReceiptDTO> receipts) {
+		try {
+			printReceipts(receipts);
+		} catch (RuntimeException e) {
+			failedCount.add(batch.size());
+			logger.logException(e);
+			return;
+		}
+
+		long printedAt = System.nanoTime();
+		for (SpooledReceipt spooled : batch) {
+			long latency = printedAt - spooled.queuedAt();
+			totalLatencyNanos.add(latency);
+			maxLatencyNanos.accumulateAndGet(latency, Math::max);
+		}
+		printedCount.add(batch.size());
+		batchCount.increment();
+	}
+
+	private record SpooledReceipt(ReceiptDTO receipt, long queuedAt) {}
+}
@@ -1,90 +1,204 @@
 package integration;
 
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-
-import dto.ItemDTO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import dto.ArchivedReceiptDTO;
 import dto.ReceiptDTO;
-import dto.SaleDTO;
-import model.Amount;
+import util.LogHandler;
 
 /**
- * This class simulates a printer that prints the receipt to the console. 
- * It formats the receipt with the sale information and item details.
+ * This class simulates a printer that prints the receipt to the console, or to a channel. The receipt is rendered
+ * into a buffer that is reused for every receipt and written out as bytes. Receipts may be printed from several lanes;
+ * they are printed one at a time. With a {@link ReceiptArchive}, every receipt is printed with a receipt number and
+ * archived under it once it has been printed.
  */
 public class Printer {
+	private final ReceiptRenderer renderer = new ReceiptRenderer();
+	private final WritableByteChannel channel;
+	private final StringBuilder receiptBuffer = new StringBuilder(1024);
+	private final CharsetEncoder encoder;
+	private ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
+	private ReceiptArchive archive;
+
+	/**
+	 * Creates a printer that prints to the console.
+	 */
+	public Printer() {
+		this(null, Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates a printer that writes receipts to the specified channel.
+	 * 
+	 * @param channel The channel to write receipts to.
+	 * @param charset The character encoding of the receipts.
+	 */
+	public Printer(WritableByteChannel channel, Charset charset) {
+		this.channel = channel;
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
 	/**
 	 * Prints the receipt to the console. Simulates a printer.
 	 * 
 	 * @param receiptDTO The receipt information to be printed.
+	 * @throws UncheckedIOException if the receipt could not be written to the channel.
 	 */
-	public void printReceipt(ReceiptDTO receiptDTO) {
-		SaleDTO saleInformation = receiptDTO.sale();
+	public synchronized void printReceipt(ReceiptDTO receiptDTO) {
+		printReceipts(List.of(receiptDTO));
+	}
 
-		HashMap<ItemDTO, Integer> quantizedItems = getQuantizedItems(saleInformation);
-		String itemsString = getItemsString(quantizedItems);
+	/**
+	 * Prints several receipts with a single write. The receipts are archived and written to the archive after they
+	 * have been printed; a receipt that could not be archived is logged and still counts as printed.
+	 * 
+	 * @param receipts The receipts to be printed, in order.
+	 * @throws UncheckedIOException if the receipts could not be written to the channel.
+	 */
+	synchronized void printReceipts(List<ReceiptDTO> receipts) {
+		long[] receiptNumbers = reserveReceiptNumbers(receipts.size());
+		int[] receiptEnds = new int[receipts.size()];
+		boolean printed = false;
+		receiptBuffer.setLength(0);
+		try {
+			for (int i = 0; i < receipts.size(); i++) {
+				renderer.render(receipts.get(i).sale(), receiptNumbers[i], receiptBuffer);
+				receiptEnds[i] = receiptBuffer.length();
+				receiptBuffer.append(System.lineSeparator());
+			}
+			write(encode(receiptBuffer));
+			printed = true;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not print receipt", e);
+		} finally {
+			if (!printed) {
+				releaseReceiptNumbers(receiptNumbers);
+			}
+		}
 
-		String formattedReceipt = getFormattedReceipt(saleInformation, itemsString);
-		System.out.println(formattedReceipt);
+		int start = 0;
+		for (int i = 0; i < receipts.size(); i++) {
+			if (receiptNumbers[i] > 0) {
+				archiveReceipt(receiptNumbers[i], receipts.get(i), receiptBuffer.subSequence(start, receiptEnds[i]));
+			}
+			start = receiptEnds[i] + System.lineSeparator().length();
+		}
+		if (receiptNumbers.length > 0 && receiptNumbers[0] > 0) {
+			flushArchive();
+		}
 	}
 
-	private HashMap<ItemDTO, Integer> getQuantizedItems(SaleDTO saleInfo) {
-		HashMap<ItemDTO, Integer> itemQuantities = new HashMap<>();
-
-		for (ItemDTO item : saleInfo.boughtItems()) {
-			itemQuantities.merge(item, 1, Integer::sum);
+	/**
+	 * Prints an archived receipt once more, exactly as it was first printed.
+	 * 
+	 * @param receiptNumber The number of the receipt in the archive.
+	 * @return true if the receipt was printed, false if there is no archive or no such receipt.
+	 * @throws UncheckedIOException if the receipt could not be read or written to the channel.
+	 */
+	public synchronized boolean reprintReceipt(long receiptNumber) {
+		Optional<ArchivedReceiptDTO> archived = (archive == null) ? Optional.empty()
+				: archive.findReceipt(receiptNumber);
+		if (archived.isEmpty()) {
+			return false;
 		}
 
-		return itemQuantities;
+		receiptBuffer.setLength(0);
+		receiptBuffer.append(archived.get().receipt()).append(System.lineSeparator());
+		try {
+			write(encode(receiptBuffer));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not print receipt", e);
+		}
+		return true;
 	}
 
-	private String getItemsString(HashMap<ItemDTO, Integer> itemQuantities) {
-		StringBuilder itemsStringBuilder = new StringBuilder();
+	/**
+	 * Keeps every receipt printed from now on in the specified archive, or stops archiving receipts. Archived receipts
+	 * are printed with their receipt number, which is used to reprint them.
+	 * 
+	 * @param archive The archive of printed receipts, or null to stop archiving.
+	 */
+	public synchronized void useArchive(ReceiptArchive archive) {
+		this.archive = archive;
+	}
 
-		for (HashMap.Entry<ItemDTO, Integer> entry : itemQuantities.entrySet()) {
-			ItemDTO item = entry.getKey();
-			int quantity = entry.getValue();
+	/* Receipts are printed without a number, as 0, if there is no archive or no number could be reserved. */
+	private long[] reserveReceiptNumbers(int count) {
+		long[] receiptNumbers = new long[count];
+		if (archive == null) {
+			return receiptNumbers;
+		}
+		try {
+			for (int i = 0; i < count; i++) {
+				receiptNumbers[i] = archive.reserveReceiptNumber();
+			}
+		} catch (UncheckedIOException | IllegalStateException e) {
+			LogHandler.getLogger().logException(e);
+			releaseReceiptNumbers(receiptNumbers);
+			Arrays.fill(receiptNumbers, 0);
+		}
+		return receiptNumbers;
+	}
 
-			Amount priceWithVat = item.price().multiply(item.vat().add(new Amount("1")));
-			Amount totalItemPrice = priceWithVat.multiply(new Amount(Integer.toString(quantity)));
+	private void releaseReceiptNumbers(long[] receiptNumbers) {
+		for (long receiptNumber : receiptNumbers) {
+			if (receiptNumber > 0) {
+				archive.releaseReceiptNumber(receiptNumber);
+			}
+		}
+	}
 
-			String itemName = (item.name().length() > 21)
-					? item.name().substring(0, 19) + "..."
-					: item.name();
-			String itemQuantity = String.valueOf(quantity);
-			String itemPrice = priceWithVat.colonized();
-			String itemTotal = totalItemPrice.colonized();
+	private void archiveReceipt(long receiptNumber, ReceiptDTO receiptDTO, CharSequence receipt) {
+		try {
+			archive.append(receiptNumber, receiptDTO.sale().saleDateTime(), receipt);
+		} catch (UncheckedIOException | IllegalStateException e) {
+			LogHandler.getLogger().logException(e);
+		}
+	}
 
-			String formattedString = """
-					%-24s %2s x %7s %10s SEK
-					""".formatted(itemName, itemQuantity, itemPrice, itemTotal);
+	/* Printed receipts are written at once, so they are not lost if the program stops before the archive is closed. */
+	private void flushArchive() {
+		try {
+			archive.flush();
+		} catch (UncheckedIOException | IllegalStateException e) {
+			LogHandler.getLogger().logException(e);
+		}
+	}
 
-			itemsStringBuilder.append(formattedString);
+	private ByteBuffer encode(CharSequence text) {
+		int maxLength = (int) Math.ceil(text.length() * (double) encoder.maxBytesPerChar());
+		if (byteBuffer.capacity() < maxLength) {
+			byteBuffer = ByteBuffer.allocate(maxLength);
 		}
 
-		return itemsStringBuilder.toString();
+		byteBuffer.clear();
+		encoder.reset();
+		encoder.encode(CharBuffer.wrap(text), byteBuffer, true);
+		encoder.flush(byteBuffer);
+		return byteBuffer.flip();
 	}
 
-	private String getFormattedReceipt(SaleDTO saleInfo, String itemsString) {
-		String time = saleInfo.saleDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-		String total = saleInfo.totalPrice().colonized();
-		String vat = saleInfo.totalVat().colonized();
-		String paid = saleInfo.amountPaid().colonized();
-		String change = saleInfo.change().colonized();
-		String discountTotal = saleInfo.discountedPrice().colonized();
-
-		return """
-				------------------ Begin receipt -------------------
-				Time of Sale: %38s
-
-				%s
-				Discount Applied: %30s SEK
-				Total: %41s SEK
-				VAT: %43s SEK
-
-				Cash: %42s SEK
-				Change: %40s SEK
-				------------------ End receipt ---------------------
-				""".formatted(time, itemsString, discountTotal, total, vat, paid, change);
+	private void write(ByteBuffer bytes) throws IOException {
+		if (channel == null) {
+			/* System.out is looked up for every receipt, since it may be replaced. */
+			System.out.write(bytes.array(), bytes.arrayOffset(), bytes.remaining());
+			System.out.flush();
+			return;
+		}
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
 	}
 }
@@ -0,0 +1,661 @@
+package integration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import dto.ArchivedReceiptDTO;
+import util.LogHandler;
+
+/**
+ * An append-only archive of printed receipts, kept in a directory on disk. Every receipt gets a receipt number, and
+ * can be found again by that number or by the time of the sale, to be reprinted or audited.
+ * <p>
+ * A receipt number can be reserved before the receipt is printed, so that the number is printed on the receipt, and
+ * the receipt is archived under it once it has been printed. Reserved numbers may be archived in any order, or be
+ * released if the receipt was never printed, which leaves a gap in the numbering. Numbers are handed out from a range
+ * whose end is saved in a number file before the first number of the range is reserved, so a number that may have
+ * been printed is never reserved again, even if the program stops before the receipt is written.
+ * <p>
+ * Receipts are collected into blocks that are compressed on their own and appended to a segment file. A new segment
+ * is started when the current one has grown past the segment size. Next to every segment is a sparse index with one
+ * entry per block, holding the lowest and highest receipt number, the earliest and latest sale time and the position
+ * of the block. The indexes of earlier segments are memory mapped, so a lookup reads the index without copying it
+ * and decompresses only the blocks that can hold the wanted receipts. The index of the segment being written is kept
+ * on the heap as well as in its file.
+ * <p>
+ * Receipts in the block being filled are kept in memory and are written by {@link #flush()}, when the block is full
+ * and when the archive is closed. A block is held back while a lower receipt number is still reserved, so every
+ * written block only holds numbers above those of the blocks before it. A block that was written without its index
+ * entry, because the program stopped in between, is discarded when the archive is opened again. All methods are
+ * synchronized.
+ */
+public class ReceiptArchive implements AutoCloseable {
+	private static final int DEFAULT_BLOCK_SIZE = 32 * 1024;
+	private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final String INDEX_SUFFIX = ".idx";
+	private static final String NUMBER_FILE_NAME = "next-receipt-number";
+	private static final long NUMBER_RANGE_SIZE = 1024;
+	private static final int RECEIPT_HEADER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES;
+	/* Lowest and highest receipt number, earliest and latest sale time, block position, receipt count and lengths. */
+	private static final int INDEX_ENTRY_SIZE = 5 * Long.BYTES + 3 * Integer.BYTES;
+
+	private final Path directory;
+	private final int blockSize;
+	private final long segmentSize;
+	private final ArrayList<Segment> segments = new ArrayList<>();
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private final Inflater inflater = new Inflater();
+	private final TreeSet<Long> reservedNumbers = new TreeSet<>();
+
+	private ByteBuffer pendingBlock;
+	private int pendingCount;
+	private long pendingFirstNumber;
+	private long pendingLastNumber;
+	private long pendingMinTime = Long.MAX_VALUE;
+	private long pendingMaxTime = Long.MIN_VALUE;
+	private byte[] compressed = new byte[1024];
+	private byte[] decompressed = new byte[1024];
+	private long nextReceiptNumber = 1;
+	private long receiptCount;
+	private final FileChannel numberChannel;
+	private long numberRangeEnd;
+	private boolean closed;
+
+	/**
+	 * Opens the archive in the specified directory, which is created if it does not exist.
+	 *
+	 * @param directory The directory of the archive.
+	 * @throws IOException if the archive could not be opened.
+	 */
+	public ReceiptArchive(Path directory) throws IOException {
+		this(directory, DEFAULT_BLOCK_SIZE, DEFAULT_SEGMENT_SIZE);
+	}
+
+	ReceiptArchive(Path directory, int blockSize, long segmentSize) throws IOException {
+		this.directory = directory;
+		this.blockSize = blockSize;
+		this.segmentSize = segmentSize;
+		this.pendingBlock = ByteBuffer.allocate(blockSize);
+
+		Files.createDirectories(directory);
+		try (Stream<Path> files = Files.list(directory)) {
+			Path[] segmentFiles = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+					.sorted()
+					.toArray(Path[]::new);
+			for (Path segmentFile : segmentFiles) {
+				segments.add(Segment.open(segmentFile, indexFileOf(segmentFile)));
+			}
+		}
+
+		/*
+		 * A segment without blocks is left behind when the program stops before the first block of a new segment is
+		 * written. It would hide the receipt numbers already used, so it is removed and numbering goes on from the last
+		 * segment that has blocks.
+		 */
+		while (!segments.isEmpty() && segments.get(segments.size() - 1).entryCount == 0) {
+			segments.remove(segments.size() - 1).delete();
+		}
+		if (!segments.isEmpty()) {
+			nextReceiptNumber = segments.get(segments.size() - 1).nextReceiptNumber();
+		}
+		numberChannel = FileChannel.open(directory.resolve(NUMBER_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		nextReceiptNumber = Math.max(nextReceiptNumber, readSavedNumber());
+		numberRangeEnd = nextReceiptNumber;
+		for (Segment segment : segments) {
+			for (int entry = 0; entry < segment.entryCount; entry++) {
+				receiptCount += segment.receiptCount(entry);
+			}
+		}
+	}
+
+	/**
+	 * Adds a receipt to the archive under a new receipt number.
+	 *
+	 * @param saleDateTime The time of the sale.
+	 * @param receipt      The receipt as it was printed.
+	 * @return The receipt number, used to find the receipt again.
+	 * @throws UncheckedIOException  if a full block could not be written.
+	 * @throws IllegalStateException if the archive has been closed.
+	 */
+	public synchronized long append(LocalDateTime saleDateTime, CharSequence receipt) {
+		long receiptNumber = reserveReceiptNumber();
+		append(receiptNumber, saleDateTime, receipt);
+		return receiptNumber;
+	}
+
+	/**
+	 * Reserves the next receipt number, for a receipt that is archived with
+	 * {@link #append(long, LocalDateTime, CharSequence)} once it has been printed.
+	 *
+	 * @return The reserved receipt number.
+	 * @throws UncheckedIOException  if a new range of numbers could not be saved.
+	 * @throws IllegalStateException if the archive has been closed.
+	 */
+	public synchronized long reserveReceiptNumber() {
+		ensureOpen();
+		if (nextReceiptNumber >= numberRangeEnd) {
+			try {
+				saveNextNumber(nextReceiptNumber + NUMBER_RANGE_SIZE);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not reserve receipt numbers", e);
+			}
+			numberRangeEnd = nextReceiptNumber + NUMBER_RANGE_SIZE;
+		}
+		long receiptNumber = nextReceiptNumber++;
+		reservedNumbers.add(receiptNumber);
+		return receiptNumber;
+	}
+
+	/**
+	 * Gives up a reserved receipt number, for a receipt that was not printed. No receipt will have that number.
+	 *
+	 * @param receiptNumber The reserved receipt number.
+	 */
+	public synchronized void releaseReceiptNumber(long receiptNumber) {
+		reservedNumbers.remove(receiptNumber);
+	}
+
+	/**
+	 * Adds a receipt to the archive under a reserved receipt number.
+	 *
+	 * @param receiptNumber The receipt number that was reserved for the receipt.
+	 * @param saleDateTime  The time of the sale.
+	 * @param receipt       The receipt as it was printed.
+	 * @throws IllegalArgumentException if the receipt number is not reserved.
+	 * @throws UncheckedIOException     if a full block could not be written.
+	 * @throws IllegalStateException    if the archive has been closed.
+	 */
+	public synchronized void append(long receiptNumber, LocalDateTime saleDateTime, CharSequence receipt) {
+		ensureOpen();
+		if (!reservedNumbers.remove(receiptNumber)) {
+			throw new IllegalArgumentException("Receipt number " + receiptNumber + " is not reserved");
+		}
+
+		ByteBuffer text = StandardCharsets.UTF_8.encode(CharBuffer.wrap(receipt));
+		int length = RECEIPT_HEADER_SIZE + text.remaining();
+		if (pendingCount > 0 && pendingBlock.position() + length > blockSize && receiptNumber > pendingLastNumber
+				&& isPendingBlockComplete()) {
+			writePendingBlock();
+		}
+		if (pendingBlock.remaining() < length) {
+			int capacity = Math.max(pendingBlock.position() + length, 2 * pendingBlock.capacity());
+			pendingBlock = ByteBuffer.allocate(capacity).put(pendingBlock.flip());
+		}
+
+		long saleTime = toArchiveTime(saleDateTime);
+		pendingBlock.putLong(receiptNumber).putLong(saleTime).putInt(text.remaining()).put(text);
+		pendingFirstNumber = (pendingCount == 0) ? receiptNumber : Math.min(pendingFirstNumber, receiptNumber);
+		pendingLastNumber = (pendingCount == 0) ? receiptNumber : Math.max(pendingLastNumber, receiptNumber);
+		pendingCount++;
+		pendingMinTime = Math.min(pendingMinTime, saleTime);
+		pendingMaxTime = Math.max(pendingMaxTime, saleTime);
+		receiptCount++;
+	}
+
+	/**
+	 * Compresses the receipts that are not yet written and appends them to the archive as a block. Nothing is written
+	 * while a receipt number below those of the unwritten receipts is reserved; the receipts are then written together
+	 * with the receipt of that number.
+	 *
+	 * @throws UncheckedIOException  if the block could not be written.
+	 * @throws IllegalStateException if the archive has been closed.
+	 */
+	public synchronized void flush() {
+		ensureOpen();
+		if (pendingCount > 0 && isPendingBlockComplete()) {
+			writePendingBlock();
+		}
+	}
+
+	/**
+	 * Finds the receipt with the specified receipt number.
+	 *
+	 * @param receiptNumber The number that was returned when the receipt was archived.
+	 * @return The receipt, or an empty Optional if there is no such receipt.
+	 * @throws UncheckedIOException  if the archive could not be read.
+	 * @throws IllegalStateException if the archive has been closed.
+	 */
+	public synchronized Optional<ArchivedReceiptDTO> findReceipt(long receiptNumber) {
+		ensureOpen();
+		if (receiptNumber < 1 || receiptNumber >= nextReceiptNumber) {
+			return Optional.empty();
+		}
+		if (pendingCount > 0 && receiptNumber >= pendingFirstNumber) {
+			return findInBlock(pendingBlock.array(), pendingBlock.position(), receiptNumber);
+		}
+
+		try {
+			for (int i = segments.size() - 1; i >= 0; i--) {
+				Segment segment = segments.get(i);
+				if (segment.entryCount > 0 && segment.firstReceiptNumber() <= receiptNumber) {
+					int entry = segment.findEntry(receiptNumber);
+					return findInBlock(decompress(segment, entry), segment.uncompressedLength(entry), receiptNumber);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the receipt archive", e);
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Finds all receipts of sales made in the specified period, ordered by receipt number.
+	 *
+	 * @param from The start of the period, inclusive.
+	 * @param to   The end of the period, inclusive.
+	 * @return The receipts of the period.
+	 * @throws UncheckedIOException  if the archive could not be read.
+	 * @throws IllegalStateException if the archive has been closed.
+	 */
+	public synchronized List<ArchivedReceiptDTO> findReceipts(LocalDateTime from, LocalDateTime to) {
+		ensureOpen();
+		long fromTime = toArchiveTime(from);
+		long toTime = toArchiveTime(to);
+		ArrayList<ArchivedReceiptDTO> found = new ArrayList<>();
+
+		try {
+			for (Segment segment : segments) {
+				for (int entry = 0; entry < segment.entryCount; entry++) {
+					if (segment.maxTime(entry) >= fromTime && segment.minTime(entry) <= toTime) {
+						collectInPeriod(decompress(segment, entry), segment.uncompressedLength(entry), fromTime,
+								toTime, found);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the receipt archive", e);
+		}
+		if (pendingCount > 0 && pendingMaxTime >= fromTime && pendingMinTime <= toTime) {
+			collectInPeriod(pendingBlock.array(), pendingBlock.position(), fromTime, toTime, found);
+		}
+		found.sort(Comparator.comparingLong(ArchivedReceiptDTO::receiptNumber));
+		return found;
+	}
+
+	/**
+	 * Retrieves the number of receipts in the archive, including those not yet written.
+	 *
+	 * @return The number of archived receipts.
+	 */
+	public synchronized long getReceiptCount() {
+		return receiptCount;
+	}
+
+	/**
+	 * Retrieves the number of segment files of the archive.
+	 *
+	 * @return The number of segments.
+	 */
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Writes the receipts that are not yet written and closes the archive files. Receipt numbers that are still
+	 * reserved are released.
+	 *
+	 * @throws UncheckedIOException if the receipts could not be written or a file could not be closed.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		reservedNumbers.clear();
+		try {
+			flush();
+			/* The rest of the range was never handed out, so numbering goes on without a gap. */
+			saveNextNumber(nextReceiptNumber);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not save the next receipt number", e);
+		} finally {
+			closed = true;
+			deflater.end();
+			inflater.end();
+			try {
+				numberChannel.close();
+			} catch (IOException e) {
+				LogHandler.getLogger().logException(e);
+			}
+			for (Segment segment : segments) {
+				try {
+					segment.close();
+				} catch (IOException e) {
+					LogHandler.getLogger().logException(e);
+				}
+			}
+		}
+	}
+
+	/* Receipts of lower numbers that are still reserved must end up in the same block as the pending receipts. */
+	private boolean isPendingBlockComplete() {
+		return reservedNumbers.isEmpty() || reservedNumbers.first() > pendingLastNumber;
+	}
+
+	private void writePendingBlock() {
+		try {
+			Segment segment = currentSegment();
+			int compressedLength = compress(pendingBlock.array(), pendingBlock.position());
+			long blockPosition = segment.append(compressed, compressedLength);
+			segment.addIndexEntry(pendingFirstNumber, pendingLastNumber, pendingMinTime, pendingMaxTime, blockPosition,
+					pendingCount, compressedLength, pendingBlock.position());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not archive receipts", e);
+		}
+
+		if (pendingBlock.capacity() > blockSize) {
+			pendingBlock = ByteBuffer.allocate(blockSize);
+		}
+		pendingBlock.clear();
+		pendingCount = 0;
+		pendingMinTime = Long.MAX_VALUE;
+		pendingMaxTime = Long.MIN_VALUE;
+	}
+
+	/* The number file is empty until the first number is reserved. */
+	private long readSavedNumber() throws IOException {
+		if (numberChannel.size() < Long.BYTES) {
+			return 1;
+		}
+		ByteBuffer number = ByteBuffer.allocate(Long.BYTES);
+		while (number.hasRemaining()) {
+			numberChannel.read(number, number.position());
+		}
+		return number.getLong(0);
+	}
+
+	private void saveNextNumber(long receiptNumber) throws IOException {
+		ByteBuffer number = ByteBuffer.allocate(Long.BYTES).putLong(0, receiptNumber);
+		while (number.hasRemaining()) {
+			numberChannel.write(number, number.position());
+		}
+		numberChannel.force(false);
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("The receipt archive has been closed");
+		}
+	}
+
+	private Segment currentSegment() throws IOException {
+		Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (last == null || last.size() >= segmentSize) {
+			String name = "receipts-%016d".formatted(pendingFirstNumber);
+			last = Segment.open(directory.resolve(name + SEGMENT_SUFFIX), directory.resolve(name + INDEX_SUFFIX));
+			segments.add(last);
+		}
+		return last;
+	}
+
+	private int compress(byte[] data, int length) {
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		return compressedLength;
+	}
+
+	private byte[] decompress(Segment segment, int entry) throws IOException {
+		int compressedLength = segment.compressedLength(entry);
+		int uncompressedLength = segment.uncompressedLength(entry);
+		if (compressed.length < compressedLength) {
+			compressed = new byte[compressedLength];
+		}
+		if (decompressed.length < uncompressedLength) {
+			decompressed = new byte[uncompressedLength];
+		}
+		segment.readBlock(segment.blockPosition(entry), compressed, compressedLength);
+
+		inflater.reset();
+		inflater.setInput(compressed, 0, compressedLength);
+		try {
+			int inflated = 0;
+			while (inflated < uncompressedLength && !inflater.finished()) {
+				int count = inflater.inflate(decompressed, inflated, uncompressedLength - inflated);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += count;
+			}
+			if (inflated != uncompressedLength) {
+				throw new IOException("Truncated receipt block in " + segment.segmentFile);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt receipt block in " + segment.segmentFile, e);
+		}
+		return decompressed;
+	}
+
+	private static Optional<ArchivedReceiptDTO> findInBlock(byte[] block, int length, long receiptNumber) {
+		ByteBuffer receipts = ByteBuffer.wrap(block, 0, length);
+		while (receipts.hasRemaining()) {
+			long number = receipts.getLong();
+			long saleTime = receipts.getLong();
+			int textLength = receipts.getInt();
+			if (number == receiptNumber) {
+				return Optional.of(toReceipt(number, saleTime, receipts, textLength));
+			}
+			receipts.position(receipts.position() + textLength);
+		}
+		return Optional.empty();
+	}
+
+	private static void collectInPeriod(byte[] block, int length, long fromTime, long toTime,
+			List<ArchivedReceiptDTO> found) {
+		ByteBuffer receipts = ByteBuffer.wrap(block, 0, length);
+		while (receipts.hasRemaining()) {
+			long number = receipts.getLong();
+			long saleTime = receipts.getLong();
+			int textLength = receipts.getInt();
+			if (saleTime >= fromTime && saleTime <= toTime) {
+				found.add(toReceipt(number, saleTime, receipts, textLength));
+			} else {
+				receipts.position(receipts.position() + textLength);
+			}
+		}
+	}
+
+	private static ArchivedReceiptDTO toReceipt(long number, long saleTime, ByteBuffer receipts, int textLength) {
+		String text = new String(receipts.array(), receipts.position(), textLength, StandardCharsets.UTF_8);
+		receipts.position(receipts.position() + textLength);
+		LocalDateTime saleDateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(saleTime, 1_000_000_000),
+				Math.floorMod(saleTime, 1_000_000_000), ZoneOffset.UTC);
+		return new ArchivedReceiptDTO(number, saleDateTime, text);
+	}
+
+	/* Sale times are local times, stored as nanoseconds since 1970-01-01T00:00 without any time zone. */
+	private static long toArchiveTime(LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000 + dateTime.getNano();
+	}
+
+	private static Path indexFileOf(Path segmentFile) {
+		String name = segmentFile.getFileName().toString();
+		return segmentFile.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+	}
+
+	private static final class Segment {
+		private final Path segmentFile;
+		private final FileChannel segmentChannel;
+		private final FileChannel indexChannel;
+		private final ByteBuffer entryBuffer = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+		/* Mapped once when the segment is opened, and copied to the heap when the segment gets new entries. */
+		private ByteBuffer index;
+		private int entryCount;
+		private long segmentLength;
+
+		private Segment(Path segmentFile, FileChannel segmentChannel, FileChannel indexChannel) {
+			this.segmentFile = segmentFile;
+			this.segmentChannel = segmentChannel;
+			this.indexChannel = indexChannel;
+		}
+
+		/* Opens or creates a segment and cuts off anything written after the last complete index entry. */
+		private static Segment open(Path segmentFile, Path indexFile) throws IOException {
+			FileChannel segmentChannel = FileChannel.open(segmentFile, StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			FileChannel indexChannel;
+			try {
+				indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE);
+			} catch (IOException e) {
+				segmentChannel.close();
+				throw e;
+			}
+
+			Segment segment = new Segment(segmentFile, segmentChannel, indexChannel);
+			segment.entryCount = (int) (indexChannel.size() / INDEX_ENTRY_SIZE);
+			indexChannel.truncate((long) segment.entryCount * INDEX_ENTRY_SIZE);
+			segment.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+					(long) segment.entryCount * INDEX_ENTRY_SIZE);
+			if (segment.entryCount > 0) {
+				int last = segment.entryCount - 1;
+				segment.segmentLength = segment.blockPosition(last) + segment.compressedLength(last);
+			}
+			segmentChannel.truncate(segment.segmentLength);
+			return segment;
+		}
+
+		private long size() {
+			return segmentLength;
+		}
+
+		private long append(byte[] block, int length) throws IOException {
+			long position = segmentLength;
+			ByteBuffer data = ByteBuffer.wrap(block, 0, length);
+			while (data.hasRemaining()) {
+				segmentChannel.write(data, position + data.position());
+			}
+			segmentLength += length;
+			return position;
+		}
+
+		private void addIndexEntry(long firstNumber, long lastNumber, long minTime, long maxTime, long position,
+				int count, int compressedLength, int uncompressedLength) throws IOException {
+			entryBuffer.clear();
+			entryBuffer.putLong(firstNumber).putLong(lastNumber).putLong(minTime).putLong(maxTime).putLong(position)
+					.putInt(count).putInt(compressedLength).putInt(uncompressedLength)
+					.flip();
+			int indexPosition = entryCount * INDEX_ENTRY_SIZE;
+			while (entryBuffer.hasRemaining()) {
+				indexChannel.write(entryBuffer, indexPosition + entryBuffer.position());
+			}
+
+			/*
+			 * Mapping the grown index file again for every block would leave a mapping per block until the garbage
+			 * collector releases them, so the entries of a segment that is written to are kept on the heap instead.
+			 */
+			if (index.isReadOnly() || index.capacity() < indexPosition + INDEX_ENTRY_SIZE) {
+				ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * index.capacity(), 64 * INDEX_ENTRY_SIZE));
+				index = grown.put(0, index, 0, indexPosition);
+			}
+			index.put(indexPosition, entryBuffer, 0, INDEX_ENTRY_SIZE);
+			entryCount++;
+		}
+
+		private void readBlock(long position, byte[] destination, int length) throws IOException {
+			ByteBuffer data = ByteBuffer.wrap(destination, 0, length);
+			while (data.hasRemaining()) {
+				if (segmentChannel.read(data, position + data.position()) < 0) {
+					throw new IOException("Truncated receipt block in " + segmentFile);
+				}
+			}
+		}
+
+		/* Binary search for the last block whose first receipt number is not above the wanted number. */
+		private int findEntry(long receiptNumber) {
+			int low = 0;
+			int high = entryCount - 1;
+			while (low < high) {
+				int middle = (low + high + 1) >>> 1;
+				if (firstReceiptNumber(middle) <= receiptNumber) {
+					low = middle;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return low;
+		}
+
+		private long firstReceiptNumber() {
+			return firstReceiptNumber(0);
+		}
+
+		private long nextReceiptNumber() {
+			return lastReceiptNumber(entryCount - 1) + 1;
+		}
+
+		private long firstReceiptNumber(int entry) {
+			return index.getLong(entry * INDEX_ENTRY_SIZE);
+		}
+
+		private long lastReceiptNumber(int entry) {
+			return index.getLong(entry * INDEX_ENTRY_SIZE + Long.BYTES);
+		}
+
+		private long minTime(int entry) {
+			return index.getLong(entry * INDEX_ENTRY_SIZE + 2 * Long.BYTES);
+		}
+
+		private long maxTime(int entry) {
+			return index.getLong(entry * INDEX_ENTRY_SIZE + 3 * Long.BYTES);
+		}
+
+		private long blockPosition(int entry) {
+			return index.getLong(entry * INDEX_ENTRY_SIZE + 4 * Long.BYTES);
+		}
+
+		private int receiptCount(int entry) {
+			return index.getInt(entry * INDEX_ENTRY_SIZE + 5 * Long.BYTES);
+		}
+
+		private int compressedLength(int entry) {
+			return index.getInt(entry * INDEX_ENTRY_SIZE + 5 * Long.BYTES + Integer.BYTES);
+		}
+
+		private int uncompressedLength(int entry) {
+			return index.getInt(entry * INDEX_ENTRY_SIZE + 5 * Long.BYTES + 2 * Integer.BYTES);
+		}
+
+		private void close() throws IOException {
+			try {
+				segmentChannel.close();
+			} finally {
+				indexChannel.close();
+			}
+		}
+
+		private void delete() throws IOException {
+			close();
+			Files.delete(segmentFile);
+			Files.delete(indexFileOf(segmentFile));
+		}
+	}
+}
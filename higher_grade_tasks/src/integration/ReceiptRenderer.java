@@ -0,0 +1,134 @@
+package integration;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+import util.StringUtils;
+
+/**
+ * Writes the receipt layout of a sale straight into a destination, such as a reused buffer or a Writer. Every field
+ * is appended and padded to its fixed column width directly, so no format strings are parsed and no String of the
+ * whole receipt is created. The renderer is stateless and can be used from several threads.
+ */
+public class ReceiptRenderer {
+	private static final Amount ONE = new Amount(1, 0);
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+	private static final String BEGIN_RECEIPT = "------------------ Begin receipt -------------------\n";
+	private static final String END_RECEIPT = "------------------ End receipt ---------------------\n";
+	private static final int LINE_WIDTH = 52;
+	private static final int TIME_WIDTH = 16;
+	private static final int NAME_WIDTH = 24;
+	private static final int MAX_NAME_LENGTH = 21;
+	private static final int SHORTENED_NAME_LENGTH = 19;
+	private static final int QUANTITY_WIDTH = 2;
+	private static final int UNIT_PRICE_WIDTH = 7;
+	private static final int LINE_TOTAL_WIDTH = 10;
+	private static final String CURRENCY = " SEK\n";
+
+	/**
+	 * Writes the receipt of the specified sale.
+	 *
+	 * @param sale The finalized sale.
+	 * @param out  The destination of the receipt.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public void render(SaleDTO sale, Appendable out) throws IOException {
+		render(sale, 0, out);
+	}
+
+	/**
+	 * Writes the receipt of the specified sale, with the receipt number under the time of sale.
+	 *
+	 * @param sale          The finalized sale.
+	 * @param receiptNumber The number of the receipt, or 0 to leave it out.
+	 * @param out           The destination of the receipt.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public void render(SaleDTO sale, long receiptNumber, Appendable out) throws IOException {
+		out.append(BEGIN_RECEIPT);
+		out.append("Time of Sale: ");
+		StringUtils.appendPadding(out, LINE_WIDTH - "Time of Sale: ".length() - TIME_WIDTH);
+		TIME_FORMAT.formatTo(sale.saleDateTime(), out);
+		out.append('\n');
+		if (receiptNumber > 0) {
+			out.append("Receipt Number: ");
+			StringUtils.appendRightAligned(out, receiptNumber, LINE_WIDTH - "Receipt Number: ".length());
+			out.append('\n');
+		}
+		out.append('\n');
+
+		renderItems(sale, out);
+		out.append('\n');
+
+		renderTotal(out, "Discount Applied: ", sale.discountedPrice());
+		renderTotal(out, "Total: ", sale.totalPrice());
+		renderTotal(out, "VAT: ", sale.totalVat());
+		out.append('\n');
+		renderTotal(out, "Cash: ", sale.amountPaid());
+		renderTotal(out, "Change: ", sale.change());
+		out.append(END_RECEIPT);
+	}
+
+	/*
+	 * Lines are merged by item id, not by the whole ItemDTO, since hashing an ItemDTO hashes its Amounts. The receipt
+	 * lists the items in the order they were first scanned.
+	 */
+	private void renderItems(SaleDTO sale, Appendable out) throws IOException {
+		LinkedHashMap<String, ReceiptLine> receiptLines = new LinkedHashMap<>(sale.saleLines().size() * 2);
+		for (SaleLineDTO line : sale.saleLines()) {
+			ReceiptLine receiptLine = receiptLines.get(line.item().id());
+			if (receiptLine == null) {
+				receiptLines.put(line.item().id(), new ReceiptLine(line.item(), line.quantity()));
+			} else {
+				receiptLine.quantity += line.quantity();
+			}
+		}
+
+		for (ReceiptLine receiptLine : receiptLines.values()) {
+			renderItem(receiptLine.item, receiptLine.quantity, out);
+		}
+	}
+
+	private void renderItem(ItemDTO item, int quantity, Appendable out) throws IOException {
+		Amount priceWithVat = item.price().multiply(item.vat().add(ONE));
+		Amount totalItemPrice = (quantity == 1) ? priceWithVat : priceWithVat.multiply(new Amount(quantity, 0));
+
+		String name = item.name();
+		if (name.length() > MAX_NAME_LENGTH) {
+			out.append(name, 0, SHORTENED_NAME_LENGTH).append("...");
+			StringUtils.appendPadding(out, NAME_WIDTH - SHORTENED_NAME_LENGTH - 3);
+		} else {
+			out.append(name);
+			StringUtils.appendPadding(out, NAME_WIDTH - name.length());
+		}
+		out.append(' ');
+		StringUtils.appendRightAligned(out, quantity, QUANTITY_WIDTH);
+		out.append(" x ");
+		priceWithVat.appendColonized(out, UNIT_PRICE_WIDTH);
+		out.append(' ');
+		totalItemPrice.appendColonized(out, LINE_TOTAL_WIDTH);
+		out.append(CURRENCY);
+	}
+
+	private void renderTotal(Appendable out, String label, Amount amount) throws IOException {
+		out.append(label);
+		amount.appendColonized(out, LINE_WIDTH - 4 - label.length());
+		out.append(CURRENCY);
+	}
+
+	private static final class ReceiptLine {
+		private final ItemDTO item;
+		private int quantity;
+
+		private ReceiptLine(ItemDTO item, int quantity) {
+			this.item = item;
+			this.quantity = quantity;
+		}
+	}
+}
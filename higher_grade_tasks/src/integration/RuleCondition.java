@@ -0,0 +1,32 @@
+package integration;
+
+import java.util.Set;
+
+import model.Amount;
+
+/**
+ * A single condition that a sale must meet for a discount rule to apply. Conditions are records, so equal conditions
+ * in different rules are compiled into one. Each kind of condition is indexed by its trigger in
+ * {@link DiscountRuleSet}.
+ */
+interface RuleCondition {
+	/**
+	 * Met when the sale contains at least the specified number of items.
+	 */
+	record MinimumItemCount(int minimum) implements RuleCondition {}
+
+	/**
+	 * Met when the total price is above the threshold, or equal to it if the threshold is inclusive.
+	 */
+	record TotalAbove(Amount threshold, boolean inclusive) implements RuleCondition {}
+
+	/**
+	 * Met when the customer is one of the specified customers, for example a single customer or a customer segment.
+	 */
+	record CustomerIn(Set<Integer> customerIds) implements RuleCondition {}
+
+	/**
+	 * Met when the sale contains the specified item.
+	 */
+	record ContainsItem(String itemId) implements RuleCondition {}
+}
@@ -0,0 +1,406 @@
+package integration;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+import util.LogHandler;
+
+/**
+ * An append-only file of finalized sales, so recorded sales survive a restart. Every sale is a record of its length, a
+ * CRC-32C checksum and the binary sale. Sales are written by a journal thread that commits them in groups: it waits
+ * at most the maximum delay for more sales, up to the maximum batch size, and writes and forces the whole group to
+ * disk at once. A sale is durable when {@link #append(SaleDTO)} returns.
+ * <p>
+ * When the journal is opened, records are checked from the start of the file. Everything from the first incomplete
+ * or damaged record on, which is what a crash in the middle of a write leaves, is cut off and logged.
+ */
+public class SalesJournal implements AutoCloseable {
+	private static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(2);
+	private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+	private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private final FileChannel channel;
+	private final long maxDelayNanos;
+	private final int maxBatchSize;
+	private final long recoveredLength;
+	private final int recoveredCount;
+	private final LinkedBlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+	private final Thread journalThread;
+	private final LongAdder journaledCount = new LongAdder();
+	private final LongAdder commitCount = new LongAdder();
+	private final ReentrantReadWriteLock acceptLock = new ReentrantReadWriteLock();
+	private volatile boolean closed;
+	private long position;
+	private ByteBuffer batchBuffer = ByteBuffer.allocate(64 * 1024);
+
+	/**
+	 * Opens the journal in the specified file, which is created if it does not exist.
+	 *
+	 * @param journalFile The journal file.
+	 * @throws IOException if the journal could not be opened.
+	 */
+	public SalesJournal(Path journalFile) throws IOException {
+		this(journalFile, DEFAULT_MAX_DELAY, DEFAULT_MAX_BATCH_SIZE);
+	}
+
+	/**
+	 * Opens the journal in the specified file, which is created if it does not exist.
+	 *
+	 * @param journalFile  The journal file.
+	 * @param maxDelay     The longest time a sale waits for more sales to be committed with.
+	 * @param maxBatchSize The largest number of sales committed with one write.
+	 * @throws IOException if the journal could not be opened.
+	 */
+	public SalesJournal(Path journalFile, Duration maxDelay, int maxBatchSize) throws IOException {
+		this.maxDelayNanos = maxDelay.toNanos();
+		this.maxBatchSize = maxBatchSize;
+		this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		try {
+			RecoveryScan scan = scanRecords(null);
+			recoveredLength = scan.validLength();
+			recoveredCount = scan.recordCount();
+			long fileLength = channel.size();
+			if (fileLength > recoveredLength) {
+				LogHandler.getLogger().logWarning("Cut off %d bytes of incomplete or damaged sales at offset %d of %s"
+						.formatted(fileLength - recoveredLength, recoveredLength, journalFile));
+				channel.truncate(recoveredLength);
+				channel.force(true);
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		position = recoveredLength;
+
+		journalThread = new Thread(this::commitQueuedRecords, "sales-journal");
+		journalThread.setDaemon(true);
+		journalThread.start();
+	}
+
+	/**
+	 * Reads every sale that was in the journal when it was opened, in the order they were journaled.
+	 *
+	 * @param consumer Receives the sales.
+	 * @return The number of replayed sales.
+	 * @throws IOException if the journal could not be read.
+	 */
+	public int replay(Consumer<SaleDTO> consumer) throws IOException {
+		return scanRecords(consumer).recordCount();
+	}
+
+	/**
+	 * Writes the sale to the journal and waits until it has been forced to disk, together with any other sales
+	 * that were appended meanwhile.
+	 *
+	 * @param saleDTO The finalized sale.
+	 * @throws UncheckedIOException  if the sale could not be written.
+	 * @throws IllegalStateException if the journal has been closed.
+	 */
+	public void append(SaleDTO saleDTO) {
+		try {
+			appendAsync(saleDTO).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Queues the sale to be written to the journal and returns at once.
+	 *
+	 * @param saleDTO The finalized sale.
+	 * @return A future that is completed when the sale is on disk, or completed exceptionally with an
+	 *         {@link UncheckedIOException} if it could not be written.
+	 * @throws IllegalStateException if the journal has been closed.
+	 */
+	public CompletableFuture<Void> appendAsync(SaleDTO saleDTO) {
+		PendingRecord record = new PendingRecord(encode(saleDTO), new CompletableFuture<>());
+		/* close() takes the write lock, so no sale is queued after the journal thread has been told to stop. */
+		acceptLock.readLock().lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("The sales journal has been closed");
+			}
+			queue.add(record);
+		} finally {
+			acceptLock.readLock().unlock();
+		}
+		return record.durable();
+	}
+
+	/**
+	 * Retrieves the number of sales that were in the journal when it was opened.
+	 *
+	 * @return The number of recovered sales.
+	 */
+	public int getRecoveredCount() {
+		return recoveredCount;
+	}
+
+	/**
+	 * Retrieves the number of sales written since the journal was opened.
+	 *
+	 * @return The number of journaled sales.
+	 */
+	public long getJournaledCount() {
+		return journaledCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of group commits, each writing and forcing one or more sales.
+	 *
+	 * @return The number of commits.
+	 */
+	public long getCommitCount() {
+		return commitCount.sum();
+	}
+
+	/**
+	 * Stops accepting sales, commits the sales that are still queued and closes the journal file.
+	 *
+	 * @throws IOException if the journal file could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		acceptLock.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			acceptLock.writeLock().unlock();
+		}
+		try {
+			journalThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		/* Sales are left in the queue only if waiting for the journal thread was interrupted. */
+		IllegalStateException closedFailure = new IllegalStateException("The sales journal has been closed");
+		for (PendingRecord record = queue.poll(); record != null; record = queue.poll()) {
+			record.durable().completeExceptionally(closedFailure);
+		}
+		channel.close();
+	}
+
+	private void commitQueuedRecords() {
+		ArrayList<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+		while (!closed || !queue.isEmpty()) {
+			try {
+				PendingRecord first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				collectBatch(batch);
+			} catch (InterruptedException e) {
+				/* Only close() stops the journal thread, so interruption is ignored. */
+				if (batch.isEmpty()) {
+					continue;
+				}
+			}
+
+			commit(batch);
+			batch.clear();
+		}
+	}
+
+	private void collectBatch(ArrayList<PendingRecord> batch) throws InterruptedException {
+		long deadline = System.nanoTime() + maxDelayNanos;
+		while (batch.size() < maxBatchSize) {
+			queue.drainTo(batch, maxBatchSize - batch.size());
+			long remaining = deadline - System.nanoTime();
+			if (batch.size() >= maxBatchSize || remaining <= 0 || closed) {
+				return;
+			}
+			PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			batch.add(next);
+		}
+	}
+
+	private void commit(ArrayList<PendingRecord> batch) {
+		int batchLength = 0;
+		for (PendingRecord record : batch) {
+			batchLength += record.bytes().length;
+		}
+		if (batchBuffer.capacity() < batchLength) {
+			batchBuffer = ByteBuffer.allocate(batchLength);
+		}
+		batchBuffer.clear();
+		for (PendingRecord record : batch) {
+			batchBuffer.put(record.bytes());
+		}
+		batchBuffer.flip();
+
+		try {
+			while (batchBuffer.hasRemaining()) {
+				channel.write(batchBuffer, position + batchBuffer.position());
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			UncheckedIOException failure = new UncheckedIOException("Could not journal sales", e);
+			try {
+				channel.truncate(position);
+			} catch (IOException truncateFailure) {
+				failure.addSuppressed(truncateFailure);
+			}
+			LogHandler.getLogger().logException(failure);
+			batch.forEach(record -> record.durable().completeExceptionally(failure));
+			return;
+		}
+
+		position += batchLength;
+		journaledCount.add(batch.size());
+		commitCount.increment();
+		batch.forEach(record -> record.durable().complete(null));
+	}
+
+	/* Reads the records written when the journal was opened and stops at the first one that is not intact. */
+	private RecoveryScan scanRecords(Consumer<SaleDTO> consumer) throws IOException {
+		InputStream channelStream = Channels.newInputStream(channel.position(0));
+		DataInputStream in = new DataInputStream(new BufferedInputStream(channelStream, 64 * 1024));
+		long limit = (consumer == null) ? channel.size() : recoveredLength;
+		long validLength = 0;
+		int recordCount = 0;
+		CRC32C crc = new CRC32C();
+		byte[] payload = new byte[256];
+
+		while (validLength + RECORD_HEADER_SIZE <= limit) {
+			int length = in.readInt();
+			int checksum = in.readInt();
+			if (length <= 0 || length > MAX_RECORD_SIZE || validLength + RECORD_HEADER_SIZE + length > limit) {
+				break;
+			}
+			if (payload.length < length) {
+				payload = new byte[Math.max(length, payload.length * 2)];
+			}
+			in.readFully(payload, 0, length);
+			crc.reset();
+			crc.update(payload, 0, length);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+
+			if (consumer != null) {
+				consumer.accept(decode(payload, length));
+			}
+			validLength += RECORD_HEADER_SIZE + length;
+			recordCount++;
+		}
+		return new RecoveryScan(validLength, recordCount);
+	}
+
+	private static byte[] encode(SaleDTO sale) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(0);
+			out.writeInt(0);
+			LocalDateTime saleDateTime = sale.saleDateTime();
+			out.writeLong(saleDateTime.toLocalDate().toEpochDay());
+			out.writeLong(saleDateTime.toLocalTime().toNanoOfDay());
+			writeAmount(out, sale.totalPrice());
+			writeAmount(out, sale.totalVat());
+			writeAmount(out, sale.amountPaid());
+			writeAmount(out, sale.change());
+			writeAmount(out, sale.discountedPrice());
+			out.writeInt(sale.saleLines().size());
+			for (SaleLineDTO line : sale.saleLines()) {
+				ItemDTO item = line.item();
+				out.writeUTF(item.id());
+				out.writeUTF(item.name());
+				writeAmount(out, item.price());
+				writeAmount(out, item.vat());
+				out.writeUTF(item.description());
+				out.writeInt(line.quantity());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+		CRC32C crc = new CRC32C();
+		crc.update(record.array(), RECORD_HEADER_SIZE, record.capacity() - RECORD_HEADER_SIZE);
+		record.putInt(0, record.capacity() - RECORD_HEADER_SIZE);
+		record.putInt(Integer.BYTES, (int) crc.getValue());
+		return record.array();
+	}
+
+	private static SaleDTO decode(byte[] payload, int length) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+		try {
+			LocalDateTime saleDateTime = LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()),
+					LocalTime.ofNanoOfDay(in.readLong()));
+			Amount totalPrice = readAmount(in);
+			Amount totalVat = readAmount(in);
+			Amount amountPaid = readAmount(in);
+			Amount change = readAmount(in);
+			Amount discountedPrice = readAmount(in);
+			int lineCount = in.readInt();
+			ArrayList<SaleLineDTO> saleLines = new ArrayList<>(lineCount);
+			for (int i = 0; i < lineCount; i++) {
+				ItemDTO item = new ItemDTO(in.readUTF(), in.readUTF(), readAmount(in), readAmount(in), in.readUTF());
+				saleLines.add(new SaleLineDTO(item, in.readInt()));
+			}
+			return new SaleDTO(saleDateTime, saleLines, totalPrice, totalVat, amountPaid, change, discountedPrice);
+		} catch (EOFException | RuntimeException e) {
+			throw new IOException("Malformed sale in the journal", e);
+		}
+	}
+
+	private static void writeAmount(DataOutputStream out, Amount amount) throws IOException {
+		BigDecimal value = amount.toBigDecimal();
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		out.writeInt(value.scale());
+		out.writeInt(unscaled.length);
+		out.write(unscaled);
+	}
+
+	private static Amount readAmount(DataInputStream in) throws IOException {
+		int scale = in.readInt();
+		byte[] unscaled = new byte[in.readInt()];
+		in.readFully(unscaled);
+		return new Amount(new BigDecimal(new BigInteger(unscaled), scale));
+	}
+
+	private record PendingRecord(byte[] bytes, CompletableFuture<Void> durable) {}
+
+	private record RecoveryScan(long validLength, int recordCount) {}
+}
@@ -0,0 +1,288 @@
+package integration;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * Stores recorded sales column by column in primitive arrays instead of keeping every SaleDTO. A sale is a row of its
+ * time in epoch milliseconds, its amounts in hundredths and the position of its first line. The lines of all sales
+ * share two columns, item ordinal and quantity. Every distinct item is stored once and referred to by its ordinal.
+ * <p>
+ * Columns grow in fixed-size chunks, so recording a sale never copies the recorded data. Sums over a column read the
+ * chunks from start to end. Amounts are rounded to hundredths when recorded. Instances are not thread safe.
+ */
+class SalesLedger {
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final LongColumn saleTimes = new LongColumn();
+	private final LongColumn totalPrices = new LongColumn();
+	private final LongColumn totalVats = new LongColumn();
+	private final LongColumn discountedPrices = new LongColumn();
+	private final LongColumn amountsPaid = new LongColumn();
+	private final LongColumn changes = new LongColumn();
+	private final IntColumn firstLines = new IntColumn();
+	private final IntColumn lineItems = new IntColumn();
+	private final IntColumn lineQuantities = new IntColumn();
+	private final ArrayList<ItemDTO> items = new ArrayList<>();
+	private final HashMap<String, Integer> latestItemOrdinals = new HashMap<>();
+	private int saleCount;
+
+	/**
+	 * Converts the amounts of a sale to hundredths, the way they are recorded.
+	 *
+	 * @param sale The sale to convert.
+	 * @return The amounts of the sale in hundredths.
+	 * @throws ArithmeticException if an amount of the sale is too large to be recorded in hundredths.
+	 */
+	static RecordedAmounts toRecordedAmounts(SaleDTO sale) {
+		return new RecordedAmounts(sale.totalPrice().toMinorUnits(), sale.totalVat().toMinorUnits(),
+				sale.discountedPrice().toMinorUnits(), sale.amountPaid().toMinorUnits(), sale.change().toMinorUnits());
+	}
+
+	/**
+	 * Records the specified sale.
+	 *
+	 * @param sale The sale to record.
+	 * @throws ArithmeticException if an amount of the sale is too large to be recorded in hundredths.
+	 */
+	void record(SaleDTO sale) {
+		record(sale, toRecordedAmounts(sale));
+	}
+
+	/**
+	 * Records the specified sale with amounts that have already been converted.
+	 *
+	 * @param sale    The sale to record.
+	 * @param amounts The amounts of the sale, as returned by {@link #toRecordedAmounts(SaleDTO)}.
+	 */
+	void record(SaleDTO sale, RecordedAmounts amounts) {
+		saleTimes.add(sale.saleDateTime().toInstant(ZoneOffset.UTC).toEpochMilli());
+		totalPrices.add(amounts.totalPrice());
+		totalVats.add(amounts.totalVat());
+		discountedPrices.add(amounts.discountedPrice());
+		amountsPaid.add(amounts.amountPaid());
+		changes.add(amounts.change());
+		firstLines.add(lineItems.size());
+		for (SaleLineDTO line : sale.saleLines()) {
+			lineItems.add(ordinalOf(line.item()));
+			lineQuantities.add(line.quantity());
+		}
+		saleCount++;
+	}
+
+	/**
+	 * Retrieves the number of recorded sales.
+	 *
+	 * @return The number of sales.
+	 */
+	int getSaleCount() {
+		return saleCount;
+	}
+
+	/**
+	 * Rebuilds a recorded sale. Its amounts have two decimal places.
+	 *
+	 * @param index The position of the sale, 0 for the first recorded sale.
+	 * @return The sale.
+	 * @throws IndexOutOfBoundsException if there is no sale at the specified position.
+	 */
+	SaleDTO getSale(int index) {
+		if (index < 0 || index >= saleCount) {
+			throw new IndexOutOfBoundsException("No recorded sale at " + index);
+		}
+
+		int firstLine = firstLines.get(index);
+		int endLine = (index + 1 < saleCount) ? firstLines.get(index + 1) : lineItems.size();
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>(endLine - firstLine);
+		for (int line = firstLine; line < endLine; line++) {
+			saleLines.add(new SaleLineDTO(items.get(lineItems.get(line)), lineQuantities.get(line)));
+		}
+		return new SaleDTO(LocalDateTime.ofEpochSecond(Math.floorDiv(saleTimes.get(index), 1000),
+				Math.floorMod(saleTimes.get(index), 1000) * 1_000_000, ZoneOffset.UTC), saleLines,
+				toAmount(totalPrices.get(index)), toAmount(totalVats.get(index)), toAmount(amountsPaid.get(index)),
+				toAmount(changes.get(index)), toAmount(discountedPrices.get(index)));
+	}
+
+	/**
+	 * Sums the total price of the sales made in the specified period.
+	 *
+	 * @param from The start of the period, inclusive.
+	 * @param to   The end of the period, exclusive.
+	 * @return The total price of the sales of the period.
+	 */
+	Amount sumTotalPrices(LocalDateTime from, LocalDateTime to) {
+		long fromMillis = from.toInstant(ZoneOffset.UTC).toEpochMilli();
+		long toMillis = to.toInstant(ZoneOffset.UTC).toEpochMilli();
+		long sum = 0;
+		for (int chunk = 0; chunk < saleTimes.chunkCount(); chunk++) {
+			long[] times = saleTimes.chunks[chunk];
+			long[] prices = totalPrices.chunks[chunk];
+			int length = saleTimes.lengthOf(chunk);
+			for (int i = 0; i < length; i++) {
+				if (times[i] >= fromMillis && times[i] < toMillis) {
+					sum = Math.addExact(sum, prices[i]);
+				}
+			}
+		}
+		return toAmount(sum);
+	}
+
+	/**
+	 * Sums a column of amounts over all recorded sales.
+	 *
+	 * @param column The column to sum.
+	 * @return The sum.
+	 */
+	Amount sum(Column column) {
+		LongColumn values = switch (column) {
+		case TOTAL_PRICE -> totalPrices;
+		case TOTAL_VAT -> totalVats;
+		case DISCOUNTED_PRICE -> discountedPrices;
+		case AMOUNT_PAID -> amountsPaid;
+		case CHANGE -> changes;
+		};
+
+		long sum = 0;
+		for (int chunk = 0; chunk < values.chunkCount(); chunk++) {
+			long[] chunkValues = values.chunks[chunk];
+			int length = values.lengthOf(chunk);
+			for (int i = 0; i < length; i++) {
+				sum = Math.addExact(sum, chunkValues[i]);
+			}
+		}
+		return toAmount(sum);
+	}
+
+	/**
+	 * Counts how many of the specified item have been sold in all recorded sales.
+	 *
+	 * @param itemId The ID of the item.
+	 * @return The sold quantity.
+	 */
+	long sumQuantity(String itemId) {
+		boolean[] matching = new boolean[items.size()];
+		boolean anyMatching = false;
+		for (int ordinal = 0; ordinal < items.size(); ordinal++) {
+			matching[ordinal] = items.get(ordinal).id().equals(itemId);
+			anyMatching |= matching[ordinal];
+		}
+		if (!anyMatching) {
+			return 0;
+		}
+
+		long quantity = 0;
+		for (int chunk = 0; chunk < lineItems.chunkCount(); chunk++) {
+			int[] ordinals = lineItems.chunks[chunk];
+			int[] quantities = lineQuantities.chunks[chunk];
+			int length = lineItems.lengthOf(chunk);
+			for (int i = 0; i < length; i++) {
+				if (matching[ordinals[i]]) {
+					quantity += quantities[i];
+				}
+			}
+		}
+		return quantity;
+	}
+
+	/*
+	 * An item gets a new ordinal when its price, VAT or description has changed since it was last sold, so old sales
+	 * keep the item as it was sold.
+	 */
+	private int ordinalOf(ItemDTO item) {
+		Integer ordinal = latestItemOrdinals.get(item.id());
+		if (ordinal != null && items.get(ordinal).equals(item)) {
+			return ordinal;
+		}
+		items.add(item);
+		latestItemOrdinals.put(item.id(), items.size() - 1);
+		return items.size() - 1;
+	}
+
+	private static Amount toAmount(long minorUnits) {
+		return new Amount(minorUnits, 2);
+	}
+
+	/**
+	 * The amounts of a sale in hundredths.
+	 */
+	record RecordedAmounts(long totalPrice, long totalVat, long discountedPrice, long amountPaid, long change) {}
+
+	/**
+	 * The amount columns of the ledger.
+	 */
+	enum Column {
+		TOTAL_PRICE, TOTAL_VAT, DISCOUNTED_PRICE, AMOUNT_PAID, CHANGE
+	}
+
+	private static final class LongColumn {
+		private long[][] chunks = new long[4][];
+		private int size;
+
+		private void add(long value) {
+			int chunk = size >>> CHUNK_BITS;
+			if (chunk == chunks.length) {
+				chunks = Arrays.copyOf(chunks, chunks.length * 2);
+			}
+			if (chunks[chunk] == null) {
+				chunks[chunk] = new long[CHUNK_SIZE];
+			}
+			chunks[chunk][size & CHUNK_MASK] = value;
+			size++;
+		}
+
+		private long get(int index) {
+			return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+		}
+
+		private int chunkCount() {
+			return (size + CHUNK_MASK) >>> CHUNK_BITS;
+		}
+
+		private int lengthOf(int chunk) {
+			return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_BITS));
+		}
+	}
+
+	private static final class IntColumn {
+		private int[][] chunks = new int[4][];
+		private int size;
+
+		private void add(int value) {
+			int chunk = size >>> CHUNK_BITS;
+			if (chunk == chunks.length) {
+				chunks = Arrays.copyOf(chunks, chunks.length * 2);
+			}
+			if (chunks[chunk] == null) {
+				chunks[chunk] = new int[CHUNK_SIZE];
+			}
+			chunks[chunk][size & CHUNK_MASK] = value;
+			size++;
+		}
+
+		private int get(int index) {
+			return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private int chunkCount() {
+			return (size + CHUNK_MASK) >>> CHUNK_BITS;
+		}
+
+		private int lengthOf(int chunk) {
+			return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_BITS));
+		}
+	}
+}
@@ -1,21 +1,33 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import util.StringUtils;
 
 /**
- * Represents an amount based on BigDecimal.
+ * Represents an amount of money. The amount is held as an unscaled <code>long</code> together with its number of
+ * decimals (a scale of 2 means hundredths of a krona, öre), and only falls back to BigDecimal when a value does not
+ * fit or a division does not terminate.
  */
 public class Amount {
-	private final BigDecimal amount;
+	private static final int MAX_COMPACT_SCALE = 18;
+	private static final long[] POWERS_OF_TEN = {
+			1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+			10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+			1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L };
+
+	private final long unscaled;
+	private final int scale;
+	private final BigDecimal inflated;
 
 	/**
 	 * Creates a new instance, representing the amount 0.
 	 */
 	public Amount() {
-		this(BigDecimal.ZERO);
+		this(0L, 0);
 	}
 
 	/**
@@ -24,7 +36,16 @@ public class Amount {
 	 * @param amount The amount represented by the newly created instance.
 	 */
 	public Amount(BigDecimal amount) {
-		this.amount = amount;
+		BigDecimal compact = toCompactForm(amount);
+		if (compact == null) {
+			this.unscaled = 0L;
+			this.scale = 0;
+			this.inflated = amount;
+		} else {
+			this.unscaled = compact.unscaledValue().longValue();
+			this.scale = compact.scale();
+			this.inflated = null;
+		}
 	}
 
 	/**
@@ -36,6 +57,26 @@ public class Amount {
 		this(new BigDecimal(amount));
 	}
 
+	/**
+	 * Creates a new instance, representing <code>unscaledValue * 10^-scale</code>. For example
+	 * <code>new Amount(2990, 2)</code> is 29.90.
+	 *
+	 * @param unscaledValue The unscaled value of the amount.
+	 * @param scale         The number of decimals in <code>unscaledValue</code>.
+	 */
+	public Amount(long unscaledValue, int scale) {
+		if (scale >= 0 && scale <= MAX_COMPACT_SCALE) {
+			this.unscaled = unscaledValue;
+			this.scale = scale;
+			this.inflated = null;
+		} else {
+			Amount converted = new Amount(BigDecimal.valueOf(unscaledValue, scale));
+			this.unscaled = converted.unscaled;
+			this.scale = converted.scale;
+			this.inflated = converted.inflated;
+		}
+	}
+
 	/**
 	 * Adds the specified Amount to this object and returns an Amount instance with the result.
 	 *
@@ -43,7 +84,14 @@ public class Amount {
 	 * @return The result of the addition.
 	 */
 	public Amount add(Amount other) {
-		return new Amount(this.amount.add(other.amount));
+		if (isCompact() && other.isCompact()) {
+			try {
+				return addCompact(this.unscaled, this.scale, other.unscaled, other.scale);
+			} catch (ArithmeticException overflow) {
+				// Falls through to the exact BigDecimal addition.
+			}
+		}
+		return new Amount(this.toBigDecimal().add(other.toBigDecimal()));
 	}
 
 	/**
@@ -53,7 +101,14 @@ public class Amount {
 	 * @return The result of the subtraction.
 	 */
 	public Amount subtract(Amount other) {
-		return new Amount(this.amount.subtract(other.amount));
+		if (isCompact() && other.isCompact() && other.unscaled != Long.MIN_VALUE) {
+			try {
+				return addCompact(this.unscaled, this.scale, -other.unscaled, other.scale);
+			} catch (ArithmeticException overflow) {
+				// Falls through to the exact BigDecimal subtraction.
+			}
+		}
+		return new Amount(this.toBigDecimal().subtract(other.toBigDecimal()));
 	}
 
 	/**
@@ -63,7 +118,18 @@ public class Amount {
 	 * @return The result of the multiplication.
 	 */
 	public Amount multiply(Amount other) {
-		return new Amount(this.amount.multiply(other.amount));
+		if (isCompact() && other.isCompact()) {
+			try {
+				Amount product = compactOrNull(Math.multiplyExact(this.unscaled, other.unscaled),
+						this.scale + other.scale);
+				if (product != null) {
+					return product;
+				}
+			} catch (ArithmeticException overflow) {
+				// Falls through to the exact BigDecimal multiplication.
+			}
+		}
+		return new Amount(this.toBigDecimal().multiply(other.toBigDecimal()));
 	}
 
 	/**
@@ -73,7 +139,13 @@ public class Amount {
 	 * @return The result of the division.
 	 */
 	public Amount divide(Amount other) {
-		return new Amount(this.amount.divide(other.amount, MathContext.DECIMAL128));
+		if (isCompact() && other.isCompact()) {
+			Amount quotient = divideTerminating(this.unscaled, this.scale, other.unscaled, other.scale);
+			if (quotient != null) {
+				return quotient;
+			}
+		}
+		return new Amount(this.toBigDecimal().divide(other.toBigDecimal(), MathContext.DECIMAL128));
 	}
 
 	/**
@@ -82,7 +154,31 @@ public class Amount {
 	 * @return A new Amount rounded to two decimal places.
 	 */
 	public Amount rounded() {
-		return new Amount(this.amount.setScale(2, RoundingMode.HALF_UP));
+		if (isCompact()) {
+			if (scale > 2) {
+				return new Amount(divideHalfUp(unscaled, POWERS_OF_TEN[scale - 2]), 2);
+			}
+			try {
+				return new Amount(Math.multiplyExact(unscaled, POWERS_OF_TEN[2 - scale]), 2);
+			} catch (ArithmeticException overflow) {
+				// Falls through to BigDecimal rounding.
+			}
+		}
+		return new Amount(this.toBigDecimal().setScale(2, RoundingMode.HALF_UP));
+	}
+
+	/**
+	 * Returns the value rounded to two decimal places as a whole number of hundredths, for example öre.
+	 *
+	 * @return The rounded value multiplied by 100.
+	 * @throws ArithmeticException if the value does not fit in a long.
+	 */
+	public long toMinorUnits() {
+		Amount rounded = rounded();
+		if (rounded.isCompact() && rounded.scale == 2) {
+			return rounded.unscaled;
+		}
+		return rounded.toBigDecimal().movePointRight(2).longValueExact();
 	}
 
 	/**
@@ -91,7 +187,42 @@ public class Amount {
 	 * @return The formatted string with a colon as the decimal separator.
 	 */
 	public String colonized() {
-		return StringUtils.formatBigDecimalToColon(this.amount);
+		StringBuilder formatted = new StringBuilder(16);
+		appendColonized(formatted, 0);
+		return formatted.toString();
+	}
+
+	/**
+	 * Appends this Amount with two decimal places and a colon as the decimal separator, right aligned in a column of
+	 * the specified width.
+	 *
+	 * @param out   The builder to append to.
+	 * @param width The minimum number of characters to append, 0 for no alignment.
+	 * @return The specified builder.
+	 */
+	public StringBuilder appendColonized(StringBuilder out, int width) {
+		try {
+			appendColonized((Appendable) out, width);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out;
+	}
+
+	/**
+	 * Appends this Amount with two decimal places and a colon as the decimal separator, right aligned in a column of
+	 * the specified width.
+	 *
+	 * @param out   The destination to append to.
+	 * @param width The minimum number of characters to append, 0 for no alignment.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public void appendColonized(Appendable out, int width) throws IOException {
+		if (isCompact()) {
+			appendCompactColonized(out, unscaled, scale, width);
+		} else {
+			StringUtils.appendColonized(out, inflated, width);
+		}
 	}
 
 	/**
@@ -102,7 +233,22 @@ public class Amount {
 	 *         the specified Amount.
 	 */
 	public int compareTo(Amount other) {
-		return this.amount.compareTo(other.amount);
+		if (isCompact() && other.isCompact()) {
+			if (this.scale == other.scale) {
+				return Long.compare(this.unscaled, other.unscaled);
+			}
+			try {
+				if (this.scale < other.scale) {
+					long aligned = Math.multiplyExact(this.unscaled, POWERS_OF_TEN[other.scale - this.scale]);
+					return Long.compare(aligned, other.unscaled);
+				}
+				long aligned = Math.multiplyExact(other.unscaled, POWERS_OF_TEN[this.scale - other.scale]);
+				return Long.compare(this.unscaled, aligned);
+			} catch (ArithmeticException overflow) {
+				// Falls through to the BigDecimal comparison.
+			}
+		}
+		return this.toBigDecimal().compareTo(other.toBigDecimal());
 	}
 
 	/**
@@ -111,7 +257,7 @@ public class Amount {
 	 * @return true if this Amount is zero, false otherwise.
 	 */
 	public boolean isZero() {
-		return this.amount.compareTo(BigDecimal.ZERO) == 0;
+		return signum() == 0;
 	}
 
 	/**
@@ -120,7 +266,7 @@ public class Amount {
 	 * @return true if this Amount is less than zero, false otherwise.
 	 */
 	public boolean isNegative() {
-		return this.amount.compareTo(BigDecimal.ZERO) < 0;
+		return signum() < 0;
 	}
 
 	/**
@@ -129,7 +275,16 @@ public class Amount {
 	 * @return true if this Amount is greater than zero, false otherwise.
 	 */
 	public boolean isPositive() {
-		return this.amount.compareTo(BigDecimal.ZERO) > 0;
+		return signum() > 0;
+	}
+
+	/**
+	 * Returns this Amount as a BigDecimal.
+	 *
+	 * @return The value of this Amount.
+	 */
+	public BigDecimal toBigDecimal() {
+		return isCompact() ? BigDecimal.valueOf(unscaled, scale) : inflated;
 	}
 
 	/**
@@ -148,16 +303,164 @@ public class Amount {
 		}
 
 		Amount otherAmount = (Amount) other;
-		return amount.compareTo(otherAmount.amount) == 0;
+		return compareTo(otherAmount) == 0;
 	}
 
 	@Override
 	public int hashCode() {
-		return amount.stripTrailingZeros().hashCode();
+		if (!isCompact()) {
+			return inflated.stripTrailingZeros().hashCode();
+		}
+		long strippedValue = unscaled;
+		int strippedScale = scale;
+		while (strippedScale > 0 && strippedValue % 10 == 0) {
+			strippedValue /= 10;
+			strippedScale--;
+		}
+		return 31 * Long.hashCode(strippedValue) + strippedScale;
 	}
 
 	@Override
 	public String toString() {
-		return amount.toString();
+		return toBigDecimal().toString();
+	}
+
+	static void appendCompactColonized(Appendable out, long unscaledValue, int valueScale, int width)
+			throws IOException {
+		long hundredths;
+		try {
+			hundredths = (valueScale > 2)
+					? divideHalfUp(unscaledValue, POWERS_OF_TEN[valueScale - 2])
+					: Math.multiplyExact(unscaledValue, POWERS_OF_TEN[2 - valueScale]);
+		} catch (ArithmeticException overflow) {
+			StringUtils.appendColonized(out, BigDecimal.valueOf(unscaledValue, valueScale), width);
+			return;
+		}
+		StringUtils.appendColonized(out, hundredths, width);
+	}
+
+	static long powerOfTen(int exponent) {
+		return POWERS_OF_TEN[exponent];
+	}
+
+	boolean isCompact() {
+		return inflated == null;
+	}
+
+	long unscaledValue() {
+		return unscaled;
+	}
+
+	int scale() {
+		return scale;
+	}
+
+	private int signum() {
+		return isCompact() ? Long.signum(unscaled) : inflated.signum();
+	}
+
+	private static Amount addCompact(long firstValue, int firstScale, long secondValue, int secondScale) {
+		if (firstScale == secondScale) {
+			return new Amount(Math.addExact(firstValue, secondValue), firstScale);
+		}
+		if (firstScale < secondScale) {
+			long aligned = Math.multiplyExact(firstValue, POWERS_OF_TEN[secondScale - firstScale]);
+			return new Amount(Math.addExact(aligned, secondValue), secondScale);
+		}
+		long aligned = Math.multiplyExact(secondValue, POWERS_OF_TEN[firstScale - secondScale]);
+		return new Amount(Math.addExact(firstValue, aligned), firstScale);
+	}
+
+	/*
+	 * Returns the exact quotient when it terminates and fits in a long, null otherwise. The quotient terminates
+	 * exactly when the reduced divisor has no prime factors other than 2 and 5.
+	 */
+	private static Amount divideTerminating(long dividend, int dividendScale, long divisor, int divisorScale) {
+		if (divisor == 0 || dividend == Long.MIN_VALUE || divisor == Long.MIN_VALUE) {
+			return null;
+		}
+		if (dividend == 0) {
+			return new Amount();
+		}
+
+		long gcd = greatestCommonDivisor(Math.abs(dividend), Math.abs(divisor));
+		long reducedDividend = dividend / gcd;
+		long reducedDivisor = divisor / gcd;
+		if (reducedDivisor < 0) {
+			reducedDividend = -reducedDividend;
+			reducedDivisor = -reducedDivisor;
+		}
+
+		long remaining = reducedDivisor;
+		int twos = 0;
+		int fives = 0;
+		while (remaining % 2 == 0) {
+			remaining /= 2;
+			twos++;
+		}
+		while (remaining % 5 == 0) {
+			remaining /= 5;
+			fives++;
+		}
+		int decimals = Math.max(twos, fives);
+		if (remaining != 1 || decimals > MAX_COMPACT_SCALE) {
+			return null;
+		}
+
+		try {
+			long quotient = Math.multiplyExact(reducedDividend, POWERS_OF_TEN[decimals] / reducedDivisor);
+			int quotientScale = dividendScale - divisorScale + decimals;
+			if (quotientScale < 0) {
+				if (-quotientScale > MAX_COMPACT_SCALE) {
+					return null;
+				}
+				quotient = Math.multiplyExact(quotient, POWERS_OF_TEN[-quotientScale]);
+				quotientScale = 0;
+			}
+			return compactOrNull(quotient, quotientScale);
+		} catch (ArithmeticException overflow) {
+			return null;
+		}
+	}
+
+	private static Amount compactOrNull(long value, int valueScale) {
+		while (valueScale > MAX_COMPACT_SCALE && value % 10 == 0) {
+			value /= 10;
+			valueScale--;
+		}
+		return valueScale <= MAX_COMPACT_SCALE ? new Amount(value, valueScale) : null;
+	}
+
+	private static long divideHalfUp(long value, long divisor) {
+		long quotient = value / divisor;
+		long remainder = value % divisor;
+		if (Math.abs(remainder) * 2 >= divisor) {
+			quotient += Long.signum(value);
+		}
+		return quotient;
+	}
+
+	private static long greatestCommonDivisor(long first, long second) {
+		while (second != 0) {
+			long remainder = first % second;
+			first = second;
+			second = remainder;
+		}
+		return first;
+	}
+
+	private static BigDecimal toCompactForm(BigDecimal value) {
+		if (fitsCompact(value)) {
+			return value;
+		}
+		BigDecimal stripped = value.stripTrailingZeros();
+		if (stripped.scale() < 0) {
+			stripped = stripped.setScale(0);
+		}
+		return fitsCompact(stripped) ? stripped : null;
+	}
+
+	private static boolean fitsCompact(BigDecimal value) {
+		return value.scale() >= 0 && value.scale() <= MAX_COMPACT_SCALE && value.unscaledValue().bitLength() < 64;
 	}
 }
@@ -0,0 +1,131 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * A mutable running total of Amounts. It is meant to be owned by a single object and never handed out; only the
+ * immutable Amount returned by {@link #toAmount()} should leave the owner. Instances are not thread safe.
+ */
+public class AmountAccumulator {
+	private long unscaled;
+	private int scale;
+	private BigDecimal inflated;
+	private Amount materialized;
+
+	/**
+	 * Creates a new accumulator with the total 0.
+	 */
+	public AmountAccumulator() {
+		reset();
+	}
+
+	/**
+	 * Adds the specified Amount to the total.
+	 *
+	 * @param amount The Amount to add.
+	 */
+	public void add(Amount amount) {
+		accumulate(amount, false);
+	}
+
+	/**
+	 * Subtracts the specified Amount from the total.
+	 *
+	 * @param amount The Amount to subtract.
+	 */
+	public void subtract(Amount amount) {
+		accumulate(amount, true);
+	}
+
+	/**
+	 * Sets the total back to 0.
+	 */
+	public void reset() {
+		unscaled = 0L;
+		scale = 0;
+		inflated = null;
+		materialized = null;
+	}
+
+	/**
+	 * Returns the current total as an immutable Amount. The same instance is returned until the total changes.
+	 *
+	 * @return The current total.
+	 */
+	public Amount toAmount() {
+		if (materialized == null) {
+			materialized = (inflated == null) ? new Amount(unscaled, scale) : new Amount(inflated);
+		}
+		return materialized;
+	}
+
+	/**
+	 * Returns the current total with two decimal places, using a colon as the decimal separator.
+	 *
+	 * @return The formatted total.
+	 */
+	public String colonized() {
+		StringBuilder formatted = new StringBuilder(16);
+		appendColonized(formatted, 0);
+		return formatted.toString();
+	}
+
+	/**
+	 * Appends the current total with two decimal places and a colon as the decimal separator, right aligned in a
+	 * column of the specified width, without creating an Amount.
+	 *
+	 * @param out   The builder to append to.
+	 * @param width The minimum number of characters to append, 0 for no alignment.
+	 * @return The specified builder.
+	 */
+	public StringBuilder appendColonized(StringBuilder out, int width) {
+		if (inflated != null) {
+			return toAmount().appendColonized(out, width);
+		}
+		try {
+			Amount.appendCompactColonized(out, unscaled, scale, width);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out;
+	}
+
+	private void accumulate(Amount amount, boolean negate) {
+		materialized = null;
+		if (inflated == null && amount.isCompact()) {
+			long value = amount.unscaledValue();
+			if (!negate || value != Long.MIN_VALUE) {
+				try {
+					addCompact(negate ? -value : value, amount.scale());
+					return;
+				} catch (ArithmeticException overflow) {
+					// Falls through to the exact BigDecimal addition.
+				}
+			}
+		}
+
+		BigDecimal current = (inflated == null) ? BigDecimal.valueOf(unscaled, scale) : inflated;
+		BigDecimal result = negate ? current.subtract(amount.toBigDecimal()) : current.add(amount.toBigDecimal());
+		Amount normalized = new Amount(result);
+		if (normalized.isCompact()) {
+			unscaled = normalized.unscaledValue();
+			scale = normalized.scale();
+			inflated = null;
+		} else {
+			inflated = result;
+		}
+	}
+
+	private void addCompact(long value, int valueScale) {
+		if (valueScale == scale) {
+			unscaled = Math.addExact(unscaled, value);
+		} else if (valueScale < scale) {
+			unscaled = Math.addExact(unscaled, Math.multiplyExact(value, Amount.powerOfTen(scale - valueScale)));
+		} else {
+			unscaled = Math.addExact(Math.multiplyExact(unscaled, Amount.powerOfTen(valueScale - scale)), value);
+			scale = valueScale;
+		}
+	}
+}
@@ -2,35 +2,57 @@ package model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
 import dto.SaleInfoDTO;
+import dto.SaleLineDTO;
 import model.discount.DiscountStrategy;
+import model.discount.LinePromotionSource;
 import observer.TotalRevenueObserver;
 
 /**
- * Represents a sale transaction, holding information about items purchased and totals.
+ * Represents a sale transaction, holding information about items purchased and totals. Bought items are kept as one
+ * line per item ID, in the order the items were first entered. Line promotions are applied as items are entered, so
+ * the running total always includes them.
  */
 public class Sale {
+	private static final Amount ONE = new Amount(1, 0);
+
 	private final LocalDateTime saleDateTime;
-	private final ArrayList<ItemDTO> boughtItems;
-	private Amount totalPrice;
-	private Amount totalVat;
+	private final LinkedHashMap<String, SaleLine> saleLines;
+	private final LinePromotionSource promotions;
+	private int itemCount;
+	private final AmountAccumulator totalPrice;
+	private final AmountAccumulator totalVat;
+	private final AmountAccumulator totalPromotionDiscount;
 	private Amount totalDiscounted;
 	private Payment payment;
 
 	private ArrayList<TotalRevenueObserver> observers = new ArrayList<>();
 
 	/**
-	 * Creates a new, empty Sale instance. Initializes totals to zero.
+	 * Creates a new, empty Sale instance without line promotions. Initializes totals to zero.
 	 */
 	public Sale() {
+		this(LinePromotionSource.NONE);
+	}
+
+	/**
+	 * Creates a new, empty Sale instance. Initializes totals to zero.
+	 *
+	 * @param promotions Where the promotion of each bought item is found.
+	 */
+	public Sale(LinePromotionSource promotions) {
 		saleDateTime = LocalDateTime.now();
-		boughtItems = new ArrayList<>();
-		totalPrice = new Amount();
-		totalVat = new Amount();
+		saleLines = new LinkedHashMap<>();
+		this.promotions = promotions;
+		itemCount = 0;
+		totalPrice = new AmountAccumulator();
+		totalVat = new AmountAccumulator();
+		totalPromotionDiscount = new AmountAccumulator();
 		totalDiscounted = new Amount();
 		observers = new ArrayList<>();
 	}
@@ -46,7 +68,7 @@ public class Sale {
 
 	private void notifyObservers() {
 		for (TotalRevenueObserver observer : observers) {
-			observer.updateTotalRevenue(totalPrice);
+			observer.updateTotalRevenue(totalPrice.toAmount());
 		}
 	}
 
@@ -57,19 +79,54 @@ public class Sale {
 	 * @return The current item information and running total.
 	 */
 	public SaleInfoDTO addBoughtItem(ItemDTO boughtItem) {
-		boughtItems.add(boughtItem);
-		ItemDTO itemWithVat = calculateRunningTotal(boughtItem);
-		return new SaleInfoDTO(itemWithVat, totalPrice, totalVat);
+		return addBoughtItem(boughtItem, 1);
+	}
+
+	/**
+	 * Adds the specified number of units of a bought item to the sale and calculates the running total. Units of an
+	 * item that is already in the sale are added to its existing line.
+	 *
+	 * @param boughtItem The item to be added to the sale.
+	 * @param quantity   The number of units bought.
+	 * @return The current item information and running total.
+	 * @throws IllegalArgumentException if the quantity is not positive.
+	 */
+	public SaleInfoDTO addBoughtItem(ItemDTO boughtItem, int quantity) {
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("Quantity must be positive, was %d".formatted(quantity));
+		}
+
+		SaleLine line = saleLines.get(boughtItem.id());
+		if (line == null) {
+			line = new SaleLine(boughtItem, promotions.findPromotion(boughtItem.id()).orElse(null));
+			saleLines.put(boughtItem.id(), line);
+		}
+		line.increaseQuantity(quantity);
+		itemCount += quantity;
+
+		ItemDTO itemWithVat = calculateRunningTotal(line.getItem(), quantity);
+		Amount promotionDiscountIncrease = line.updatePromotionDiscount(itemWithVat.price());
+		if (promotionDiscountIncrease != null) {
+			totalPromotionDiscount.add(promotionDiscountIncrease);
+			totalPrice.subtract(promotionDiscountIncrease);
+		}
+		return new SaleInfoDTO(itemWithVat, quantity, totalPrice.toAmount(), totalVat.toAmount());
 	}
 
-	private ItemDTO calculateRunningTotal(ItemDTO boughtItem) {
+	private ItemDTO calculateRunningTotal(ItemDTO boughtItem, int quantity) {
 		Amount itemBasePrice = boughtItem.price();
 		Amount vatRate = boughtItem.vat();
 		Amount vatPrice = itemBasePrice.multiply(vatRate);
-		Amount itemFullPrice = itemBasePrice.multiply(vatRate.add(new Amount("1")));
-
-		totalVat = totalVat.add(vatPrice);
-		totalPrice = totalPrice.add(itemFullPrice);
+		Amount itemFullPrice = itemBasePrice.multiply(vatRate.add(ONE));
+
+		if (quantity == 1) {
+			totalVat.add(vatPrice);
+			totalPrice.add(itemFullPrice);
+		} else {
+			Amount units = new Amount(quantity, 0);
+			totalVat.add(vatPrice.multiply(units));
+			totalPrice.add(itemFullPrice.multiply(units));
+		}
 
 		return new ItemDTO(boughtItem.id(), boughtItem.name(), itemFullPrice, vatRate, boughtItem.description());
 	}
@@ -81,7 +138,16 @@ public class Sale {
 	 */
 	public Amount getTotalPrice() {
 		this.payment = new Payment();
-		return this.totalPrice;
+		return this.totalPrice.toAmount();
+	}
+
+	/**
+	 * Retrieves the discount of all line promotions in the sale. The total price already includes it.
+	 *
+	 * @return The total line promotion discount.
+	 */
+	public Amount getPromotionDiscount() {
+		return totalPromotionDiscount.toAmount();
 	}
 
 	/**
@@ -91,24 +157,40 @@ public class Sale {
 	 * @return The discounted total price.
 	 */
 	public Amount setDiscountedPrice(ArrayList<DiscountStrategy> discounts) {
-		Amount discountTotal = new Amount();
+		Amount priceBeforeDiscount = totalPrice.toAmount();
+		AmountAccumulator discountTotal = new AmountAccumulator();
 
 		for (DiscountStrategy discount : discounts) {
-			discountTotal = discountTotal.add(discount.calculateDiscount(totalPrice));
+			discountTotal.add(discount.calculateDiscount(priceBeforeDiscount));
+		}
+
+		this.totalDiscounted = discountTotal.toAmount();
+		totalPrice.subtract(totalDiscounted);
+		return totalPrice.toAmount();
+	}
+
+	/**
+	 * Retrieves all lines of the sale, one per item ID, in the order the items were first entered.
+	 *
+	 * @return The sale lines. Returns an empty list if no items have been added.
+	 */
+	public ArrayList<SaleLineDTO> getSaleLines() {
+		ArrayList<SaleLineDTO> lines = new ArrayList<>(saleLines.size());
+
+		for (SaleLine line : saleLines.values()) {
+			lines.add(line.toDTO());
 		}
 
-		this.totalDiscounted = discountTotal;
-		totalPrice = totalPrice.subtract(discountTotal);
-		return totalPrice;
+		return lines;
 	}
 
 	/**
-	 * Retrieves all items that have been added to the sale.
+	 * Retrieves the total number of units bought in this sale.
 	 *
-	 * @return The bought items. Returns an empty list if no items have been added.
+	 * @return The number of bought units.
 	 */
-	public ArrayList<ItemDTO> getBoughtItems() {
-		return this.boughtItems;
+	public int getItemCount() {
+		return itemCount;
 	}
 
 	/**
@@ -130,11 +212,12 @@ public class Sale {
 		Amount change = getChange(amount);
 		notifyObservers();
 
-		return new SaleDTO(saleDateTime, boughtItems, totalPrice, totalVat, amount, change, totalDiscounted);
+		return new SaleDTO(saleDateTime, getSaleLines(), totalPrice.toAmount(), totalVat.toAmount(), amount, change,
+				totalDiscounted.add(totalPromotionDiscount.toAmount()));
 	}
 
 	private Amount getChange(Amount amount) {
-		return amount.subtract(totalPrice);
+		return amount.subtract(totalPrice.toAmount());
 	}
 
 	/**
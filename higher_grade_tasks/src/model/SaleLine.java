@@ -0,0 +1,71 @@
+package model;
+
+import dto.ItemDTO;
+import dto.SaleLineDTO;
+import model.discount.LinePromotion;
+
+/**
+ * One line of a sale, holding an item, how many of it have been bought and the discount of its promotion, if any.
+ */
+class SaleLine {
+	private final ItemDTO item;
+	private final LinePromotion promotion;
+	private int quantity;
+	private Amount promotionDiscount;
+
+	/**
+	 * Creates a new line with no bought units.
+	 *
+	 * @param item      The item of this line.
+	 * @param promotion The promotion of this line, or null if there is none.
+	 */
+	SaleLine(ItemDTO item, LinePromotion promotion) {
+		this.item = item;
+		this.promotion = promotion;
+		this.quantity = 0;
+		this.promotionDiscount = new Amount();
+	}
+
+	/**
+	 * Increases the number of bought units on this line.
+	 *
+	 * @param addedQuantity The number of units to add.
+	 */
+	void increaseQuantity(int addedQuantity) {
+		quantity += addedQuantity;
+	}
+
+	/**
+	 * Evaluates the promotion for the current quantity and returns how much the discount of this line has changed.
+	 * Only this line is evaluated, so the cost does not depend on the size of the sale.
+	 *
+	 * @param unitPrice The price of one unit, including VAT.
+	 * @return The increase of the line discount, or null if the line has no promotion.
+	 */
+	Amount updatePromotionDiscount(Amount unitPrice) {
+		if (promotion == null) {
+			return null;
+		}
+		Amount newDiscount = promotion.calculateLineDiscount(unitPrice, quantity);
+		Amount increase = newDiscount.subtract(promotionDiscount);
+		promotionDiscount = newDiscount;
+		return increase;
+	}
+
+	ItemDTO getItem() {
+		return item;
+	}
+
+	int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * Creates a snapshot of this line.
+	 *
+	 * @return The line information.
+	 */
+	SaleLineDTO toDTO() {
+		return new SaleLineDTO(item, quantity);
+	}
+}
@@ -0,0 +1,53 @@
+package model.discount;
+
+import model.Amount;
+
+/**
+ * Promotion where a bundle of units is sold for a fixed price, for example 3 for 50 SEK. The deal applies once for
+ * every complete bundle, and never makes a bundle more expensive than its units.
+ */
+public class BundlePricePromotion implements LinePromotion {
+	private final int bundleSize;
+	private final Amount bundlePrice;
+	private final String description;
+
+	/**
+	 * Creates a new bundle price promotion.
+	 *
+	 * @param bundleSize  The number of units in a bundle.
+	 * @param bundlePrice The price of a bundle, including VAT.
+	 * @param description The description of the promotion.
+	 */
+	public BundlePricePromotion(int bundleSize, Amount bundlePrice, String description) {
+		this.bundleSize = bundleSize;
+		this.bundlePrice = bundlePrice;
+		this.description = description;
+	}
+
+	/**
+	 * Calculates the discount for a whole line, the difference between the unit prices and the bundle prices.
+	 *
+	 * @param unitPrice The price of one unit, including VAT.
+	 * @param quantity  The number of units on the line.
+	 * @return The discount for the line.
+	 */
+	@Override
+	public Amount calculateLineDiscount(Amount unitPrice, int quantity) {
+		int bundles = quantity / bundleSize;
+		Amount savingPerBundle = unitPrice.multiply(new Amount(bundleSize, 0)).subtract(bundlePrice);
+		if (bundles == 0 || !savingPerBundle.isPositive()) {
+			return new Amount();
+		}
+		return savingPerBundle.multiply(new Amount(bundles, 0));
+	}
+
+	/**
+	 * Retrieves the description of the promotion.
+	 *
+	 * @return The description of the promotion.
+	 */
+	@Override
+	public String getDescription() {
+		return description;
+	}
+}
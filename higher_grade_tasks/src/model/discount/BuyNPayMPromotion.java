@@ -0,0 +1,54 @@
+package model.discount;
+
+import model.Amount;
+
+/**
+ * Promotion where the customer pays for fewer units than bought, for example buy 3 pay 2. The deal applies once for
+ * every complete group of units.
+ */
+public class BuyNPayMPromotion implements LinePromotion {
+	private final int groupSize;
+	private final Amount freeUnitsPerGroup;
+	private final String description;
+
+	/**
+	 * Creates a new buy N pay M promotion.
+	 *
+	 * @param groupSize   The number of units in a group, N.
+	 * @param paidUnits   The number of units paid for in a group, M.
+	 * @param description The description of the promotion.
+	 * @throws IllegalArgumentException if the paid units are negative or not fewer than the group size.
+	 */
+	public BuyNPayMPromotion(int groupSize, Amount paidUnits, String description) {
+		if (paidUnits.isNegative() || paidUnits.compareTo(new Amount(groupSize, 0)) >= 0) {
+			throw new IllegalArgumentException("Paid units must be at least 0 and fewer than %d, was %s"
+					.formatted(groupSize, paidUnits));
+		}
+		this.groupSize = groupSize;
+		this.freeUnitsPerGroup = new Amount(groupSize, 0).subtract(paidUnits);
+		this.description = description;
+	}
+
+	/**
+	 * Calculates the discount for a whole line, the price of the free units.
+	 *
+	 * @param unitPrice The price of one unit, including VAT.
+	 * @param quantity  The number of units on the line.
+	 * @return The discount for the line.
+	 */
+	@Override
+	public Amount calculateLineDiscount(Amount unitPrice, int quantity) {
+		int groups = quantity / groupSize;
+		return unitPrice.multiply(freeUnitsPerGroup).multiply(new Amount(groups, 0));
+	}
+
+	/**
+	 * Retrieves the description of the promotion.
+	 *
+	 * @return The description of the promotion.
+	 */
+	@Override
+	public String getDescription() {
+		return description;
+	}
+}
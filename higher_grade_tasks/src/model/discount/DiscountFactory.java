@@ -1,16 +1,24 @@
 package model.discount;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import dto.DiscountDTO;
 import dto.DiscountInfoDTO;
+import dto.PromotionInfoDTO;
 import integration.DiscountCatalog;
 
 /**
- * Factory for creating eligible discount strategies based on sale and customer data.
+ * Factory for creating eligible discount strategies based on sale and customer data, and line promotions for single
+ * items. Strategies and promotions are immutable, so one is created for each catalog entry and shared by all sales
+ * until the catalog changes.
  */
-public class DiscountFactory {
+public class DiscountFactory implements LinePromotionSource {
 	private final DiscountCatalog discountCatalog;
+	private final DiscountSolver discountSolver;
+	private volatile StrategyCache strategyCache = new StrategyCache(-1);
 
 	/**
 	 * Constructor for the DiscountFactory class.
@@ -18,7 +26,18 @@ public class DiscountFactory {
 	 * @param discountCatalog The discount catalog to fetch eligible discounts from.
 	 */
 	public DiscountFactory(DiscountCatalog discountCatalog) {
+		this(discountCatalog, Duration.ofMillis(50));
+	}
+
+	/**
+	 * Creates a factory whose choice of discount combination may take at most the specified time.
+	 *
+	 * @param discountCatalog  The discount catalog to fetch eligible discounts from.
+	 * @param solverTimeBudget The time the search for the best combination may take before a greedy choice is made.
+	 */
+	public DiscountFactory(DiscountCatalog discountCatalog, Duration solverTimeBudget) {
 		this.discountCatalog = discountCatalog;
+		this.discountSolver = new DiscountSolver(solverTimeBudget);
 	}
 
 	/**
@@ -28,20 +47,87 @@ public class DiscountFactory {
 	 * @return A list of applicable discount strategies.
 	 */
 	public ArrayList<DiscountStrategy> fetchEligibleDiscounts(DiscountDTO discountDTO) {
+		StrategyCache cache = currentStrategyCache();
 		ArrayList<DiscountInfoDTO> eligibleDiscounts = discountCatalog.fetchEligibleDiscounts(discountDTO);
-		ArrayList<DiscountStrategy> discountStrategies = new ArrayList<>();
+		ArrayList<DiscountStrategy> discountStrategies = new ArrayList<>(eligibleDiscounts.size());
 
 		for (DiscountInfoDTO discount : eligibleDiscounts) {
-			switch (discount.type()) {
-			case "ITEM_BASED" -> discountStrategies
-					.add(new ItemBasedDiscount(discount.value(), discount.description()));
-			case "TOTAL_PERCENT" -> discountStrategies
-					.add(new TotalPricePercentageDiscount(discount.value(), discount.description()));
-			case "CUSTOMER_PERCENT" -> discountStrategies
-					.add(new CustomerBasedDiscount(discount.value(), discount.description()));
-			}
+			discountStrategies.add(cache.strategyFor(discount));
 		}
 
 		return discountStrategies;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Chooses the combination of eligible discounts that gives the customer the largest discount, applying at most one
+	 * discount of each exclusivity group.
+	 *
+	 * @param discountDTO The object containing sale and customer information.
+	 * @return The chosen discounts, together with how long it took to choose them.
+	 */
+	public DiscountSelection selectDiscounts(DiscountDTO discountDTO) {
+		StrategyCache cache = currentStrategyCache();
+		ArrayList<DiscountInfoDTO> eligibleDiscounts = discountCatalog.fetchEligibleDiscounts(discountDTO);
+		ArrayList<DiscountSolver.Candidate> candidates = new ArrayList<>(eligibleDiscounts.size());
+
+		for (DiscountInfoDTO discount : eligibleDiscounts) {
+			candidates.add(new DiscountSolver.Candidate(cache.strategyFor(discount), discount.exclusivityGroups()));
+		}
+
+		return discountSolver.solve(candidates, discountDTO.totalPrice());
+	}
+
+	/**
+	 * Finds the line promotion for the specified item.
+	 *
+	 * @param itemId The ID of the item.
+	 * @return The promotion, or an empty Optional if the item has no promotion.
+	 */
+	@Override
+	public Optional<LinePromotion> findPromotion(String itemId) {
+		StrategyCache cache = currentStrategyCache();
+		return discountCatalog.fetchPromotion(itemId).map(cache::promotionFor);
+	}
+
+	private StrategyCache currentStrategyCache() {
+		long catalogVersion = discountCatalog.getVersion();
+		StrategyCache cache = strategyCache;
+		if (cache.catalogVersion != catalogVersion) {
+			cache = new StrategyCache(catalogVersion);
+			strategyCache = cache;
+		}
+		return cache;
+	}
+
+	/**
+	 * The strategies and promotions created for one version of the catalog. Entries are compared by value, so a
+	 * strategy is always correct for its entry, even if the catalog changes while a sale is checked.
+	 */
+	private static class StrategyCache {
+		private final long catalogVersion;
+		private final ConcurrentHashMap<DiscountInfoDTO, DiscountStrategy> strategies = new ConcurrentHashMap<>();
+		private final ConcurrentHashMap<PromotionInfoDTO, LinePromotion> promotions = new ConcurrentHashMap<>();
+
+		StrategyCache(long catalogVersion) {
+			this.catalogVersion = catalogVersion;
+		}
+
+		DiscountStrategy strategyFor(DiscountInfoDTO discount) {
+			DiscountStrategy strategy = strategies.get(discount);
+			if (strategy == null) {
+				strategy = strategies.computeIfAbsent(discount,
+						entry -> entry.type().createStrategy(entry.value(), entry.description()));
+			}
+			return strategy;
+		}
+
+		LinePromotion promotionFor(PromotionInfoDTO promotionInfo) {
+			LinePromotion promotion = promotions.get(promotionInfo);
+			if (promotion == null) {
+				promotion = promotions.computeIfAbsent(promotionInfo,
+						entry -> entry.type().createPromotion(entry.groupSize(), entry.value(), entry.description()));
+			}
+			return promotion;
+		}
+	}
+}
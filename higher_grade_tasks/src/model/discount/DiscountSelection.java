@@ -0,0 +1,71 @@
+package model.discount;
+
+import java.util.ArrayList;
+
+import model.Amount;
+
+/**
+ * The combination of discounts chosen for a sale, together with a report of how it was found.
+ */
+public class DiscountSelection {
+	private final ArrayList<DiscountStrategy> discounts;
+	private final Amount totalDiscount;
+	private final long solveTimeNanos;
+	private final boolean optimal;
+	private final long exploredStateCount;
+
+	DiscountSelection(ArrayList<DiscountStrategy> discounts, Amount totalDiscount, long solveTimeNanos,
+			boolean optimal, long exploredStateCount) {
+		this.discounts = discounts;
+		this.totalDiscount = totalDiscount;
+		this.solveTimeNanos = solveTimeNanos;
+		this.optimal = optimal;
+		this.exploredStateCount = exploredStateCount;
+	}
+
+	/**
+	 * Retrieves the chosen discounts, in the order they are defined in the catalog.
+	 *
+	 * @return The chosen discounts.
+	 */
+	public ArrayList<DiscountStrategy> getDiscounts() {
+		return new ArrayList<>(discounts);
+	}
+
+	/**
+	 * Retrieves the sum of the chosen discounts.
+	 *
+	 * @return The total discount.
+	 */
+	public Amount getTotalDiscount() {
+		return totalDiscount;
+	}
+
+	/**
+	 * Retrieves how long it took to choose the discounts.
+	 *
+	 * @return The solve time in nanoseconds.
+	 */
+	public long getSolveTimeNanos() {
+		return solveTimeNanos;
+	}
+
+	/**
+	 * Tells whether the chosen combination is known to give the largest possible discount. If the time budget ran
+	 * out, the best combination found by a greedy choice is used instead.
+	 *
+	 * @return True if the combination is optimal.
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+
+	/**
+	 * Retrieves the number of search states that were explored.
+	 *
+	 * @return The number of explored states.
+	 */
+	public long getExploredStateCount() {
+		return exploredStateCount;
+	}
+}
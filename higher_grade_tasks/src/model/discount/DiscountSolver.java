@@ -0,0 +1,218 @@
+package model.discount;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import model.Amount;
+
+/**
+ * Chooses the combination of discounts that gives the customer the largest discount. Discounts in different
+ * exclusivity groups stack, while at most one discount of each group may be applied. Discounts that share no group
+ * with another eligible discount are always applied. The rest are chosen by a memoized search over the discounts and
+ * the groups already used. If the search does not finish within the time budget, or more than 64 groups are
+ * contested, the discounts are chosen greedily, largest first.
+ */
+final class DiscountSolver {
+	private static final int STATES_BETWEEN_CLOCK_CHECKS = 256;
+
+	private final long timeBudgetNanos;
+	private final LongSupplier clock;
+
+	/**
+	 * Creates a solver with the specified time budget.
+	 *
+	 * @param timeBudget The time the search may take before it falls back to a greedy choice.
+	 */
+	DiscountSolver(Duration timeBudget) {
+		this(timeBudget, System::nanoTime);
+	}
+
+	DiscountSolver(Duration timeBudget, LongSupplier clock) {
+		this.timeBudgetNanos = timeBudget.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * Chooses the best valid combination of the eligible discounts.
+	 *
+	 * @param candidates The eligible discounts, in catalog order.
+	 * @param totalPrice The total price the discounts are calculated from.
+	 * @return The chosen discounts and a report of the search.
+	 */
+	DiscountSelection solve(List<Candidate> candidates, Amount totalPrice) {
+		long startNanos = clock.getAsLong();
+		Search search = new Search(candidates, totalPrice, startNanos);
+
+		boolean[] chosen;
+		boolean optimal;
+		try {
+			chosen = search.chooseOptimal();
+			optimal = true;
+		} catch (TimeBudgetExceededException e) {
+			chosen = search.chooseGreedily();
+			optimal = false;
+		}
+
+		ArrayList<DiscountStrategy> discounts = new ArrayList<>();
+		Amount totalDiscount = new Amount();
+		for (int i = 0; i < candidates.size(); i++) {
+			if (chosen[i]) {
+				discounts.add(candidates.get(i).strategy());
+				totalDiscount = totalDiscount.add(search.values[i]);
+			}
+		}
+		return new DiscountSelection(discounts, totalDiscount, clock.getAsLong() - startNanos, optimal,
+				search.exploredStateCount);
+	}
+
+	/**
+	 * An eligible discount and the exclusivity groups it belongs to.
+	 */
+	record Candidate(DiscountStrategy strategy, Set<String> exclusivityGroups) {}
+
+	/**
+	 * The state of one search. Only the discounts that conflict with another discount are searched; they are sorted
+	 * largest first and each is given a bit mask of its contested groups.
+	 */
+	private final class Search {
+		private final List<Candidate> candidates;
+		private final Amount[] values;
+		private final long startNanos;
+		private final boolean[] alwaysChosen;
+		private final int[] contested;
+		private final long[] groupMasks;
+		private final boolean tooManyGroups;
+		private final HashMap<State, Amount> bestByState = new HashMap<>();
+		private long exploredStateCount;
+
+		Search(List<Candidate> candidates, Amount totalPrice, long startNanos) {
+			this.candidates = candidates;
+			this.startNanos = startNanos;
+			this.values = new Amount[candidates.size()];
+			this.alwaysChosen = new boolean[candidates.size()];
+
+			HashMap<String, Integer> groupUsage = new HashMap<>();
+			for (int i = 0; i < candidates.size(); i++) {
+				values[i] = candidates.get(i).strategy().calculateDiscount(totalPrice);
+				if (values[i].isPositive()) {
+					for (String group : candidates.get(i).exclusivityGroups()) {
+						groupUsage.merge(group, 1, Integer::sum);
+					}
+				}
+			}
+
+			HashMap<String, Integer> groupBits = new HashMap<>();
+			groupUsage.forEach((group, usage) -> {
+				if (usage > 1) {
+					groupBits.put(group, groupBits.size());
+				}
+			});
+			this.tooManyGroups = groupBits.size() > Long.SIZE;
+
+			ArrayList<Integer> contestedIndexes = new ArrayList<>();
+			long[] masks = new long[candidates.size()];
+			for (int i = 0; i < candidates.size(); i++) {
+				if (!values[i].isPositive()) {
+					continue;
+				}
+				boolean isContested = false;
+				for (String group : candidates.get(i).exclusivityGroups()) {
+					Integer bit = groupBits.get(group);
+					if (bit != null) {
+						isContested = true;
+						masks[i] |= (bit < Long.SIZE) ? 1L << bit : 0;
+					}
+				}
+				if (isContested) {
+					contestedIndexes.add(i);
+				} else {
+					alwaysChosen[i] = true;
+				}
+			}
+
+			contestedIndexes.sort((first, second) -> values[second].compareTo(values[first]));
+			this.contested = contestedIndexes.stream().mapToInt(Integer::intValue).toArray();
+			this.groupMasks = Arrays.stream(contested).mapToLong(index -> masks[index]).toArray();
+		}
+
+		boolean[] chooseOptimal() {
+			if (tooManyGroups) {
+				throw new TimeBudgetExceededException();
+			}
+
+			boolean[] chosen = alwaysChosen.clone();
+			long usedGroups = 0;
+			for (int position = 0; position < contested.length; position++) {
+				if ((usedGroups & groupMasks[position]) != 0) {
+					continue;
+				}
+				Amount withDiscount = values[contested[position]]
+						.add(bestFrom(position + 1, usedGroups | groupMasks[position]));
+				if (withDiscount.compareTo(bestFrom(position + 1, usedGroups)) >= 0) {
+					chosen[contested[position]] = true;
+					usedGroups |= groupMasks[position];
+				}
+			}
+			return chosen;
+		}
+
+		boolean[] chooseGreedily() {
+			boolean[] chosen = alwaysChosen.clone();
+			HashSet<String> usedGroups = new HashSet<>();
+			for (int index : contested) {
+				Set<String> groups = candidates.get(index).exclusivityGroups();
+				if (groups.stream().noneMatch(usedGroups::contains)) {
+					chosen[index] = true;
+					usedGroups.addAll(groups);
+				}
+			}
+			return chosen;
+		}
+
+		private Amount bestFrom(int position, long usedGroups) {
+			if (position == contested.length) {
+				return new Amount();
+			}
+
+			State state = new State(position, usedGroups);
+			Amount best = bestByState.get(state);
+			if (best != null) {
+				return best;
+			}
+			if (++exploredStateCount % STATES_BETWEEN_CLOCK_CHECKS == 0
+					&& clock.getAsLong() - startNanos > timeBudgetNanos) {
+				throw new TimeBudgetExceededException();
+			}
+
+			best = bestFrom(position + 1, usedGroups);
+			if ((usedGroups & groupMasks[position]) == 0) {
+				Amount withDiscount = values[contested[position]]
+						.add(bestFrom(position + 1, usedGroups | groupMasks[position]));
+				if (withDiscount.compareTo(best) > 0) {
+					best = withDiscount;
+				}
+			}
+			bestByState.put(state, best);
+			return best;
+		}
+	}
+
+	private record State(int position, long usedGroups) {}
+
+	/**
+	 * Ends a search that has used up its time budget. No stack trace is recorded, since it is part of normal flow.
+	 */
+	private static class TimeBudgetExceededException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		TimeBudgetExceededException() {
+			super(null, null, false, false);
+		}
+	}
+}
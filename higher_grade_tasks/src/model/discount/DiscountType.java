@@ -0,0 +1,46 @@
+package model.discount;
+
+import model.Amount;
+
+/**
+ * The kinds of discounts that the discount catalog can describe. The type of a catalog entry is resolved when the
+ * catalog is loaded, and each type knows how to create its strategy.
+ */
+public enum DiscountType {
+	/**
+	 * A fixed amount off the total price.
+	 */
+	ITEM_BASED {
+		@Override
+		DiscountStrategy createStrategy(Amount value, String description) {
+			return new ItemBasedDiscount(value, description);
+		}
+	},
+	/**
+	 * A percentage off the total price.
+	 */
+	TOTAL_PERCENT {
+		@Override
+		DiscountStrategy createStrategy(Amount value, String description) {
+			return new TotalPricePercentageDiscount(value, description);
+		}
+	},
+	/**
+	 * A percentage off the total price for specific customers.
+	 */
+	CUSTOMER_PERCENT {
+		@Override
+		DiscountStrategy createStrategy(Amount value, String description) {
+			return new CustomerBasedDiscount(value, description);
+		}
+	};
+
+	/**
+	 * Creates the strategy that applies a discount of this type.
+	 *
+	 * @param value       The discount value, a fixed amount or a percentage in decimal form.
+	 * @param description The description of the discount.
+	 * @return The new strategy.
+	 */
+	abstract DiscountStrategy createStrategy(Amount value, String description);
+}
@@ -0,0 +1,44 @@
+package model.discount;
+
+import model.Amount;
+
+/**
+ * Promotion that takes a percentage off every unit of one item.
+ */
+public class ItemPercentagePromotion implements LinePromotion {
+	private final Amount discountPercentage;
+	private final String description;
+
+	/**
+	 * Creates a new item percentage promotion.
+	 *
+	 * @param discountPercentage The percentage in decimal form to discount.
+	 * @param description        The description of the promotion.
+	 */
+	public ItemPercentagePromotion(Amount discountPercentage, String description) {
+		this.discountPercentage = discountPercentage;
+		this.description = description;
+	}
+
+	/**
+	 * Calculates the discount for a whole line.
+	 *
+	 * @param unitPrice The price of one unit, including VAT.
+	 * @param quantity  The number of units on the line.
+	 * @return The discount for the line.
+	 */
+	@Override
+	public Amount calculateLineDiscount(Amount unitPrice, int quantity) {
+		return unitPrice.multiply(new Amount(quantity, 0)).multiply(discountPercentage);
+	}
+
+	/**
+	 * Retrieves the description of the promotion.
+	 *
+	 * @return The description of the promotion.
+	 */
+	@Override
+	public String getDescription() {
+		return description;
+	}
+}
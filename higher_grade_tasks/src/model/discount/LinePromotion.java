@@ -0,0 +1,26 @@
+package model.discount;
+
+import model.Amount;
+
+/**
+ * Promotion that applies to a single sale line, for example a multi-buy deal on one item. Promotions are evaluated
+ * every time units are added to their line, so the running total always includes them. Like the other discounts,
+ * promotions reduce the price including VAT.
+ */
+public interface LinePromotion {
+	/**
+	 * Calculates the discount for a whole line.
+	 *
+	 * @param unitPrice The price of one unit, including VAT.
+	 * @param quantity  The number of units on the line.
+	 * @return The discount for the line, never negative.
+	 */
+	Amount calculateLineDiscount(Amount unitPrice, int quantity);
+
+	/**
+	 * Retrieves the description of the promotion.
+	 *
+	 * @return The description of the promotion.
+	 */
+	String getDescription();
+}
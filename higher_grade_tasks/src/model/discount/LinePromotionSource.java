@@ -0,0 +1,22 @@
+package model.discount;
+
+import java.util.Optional;
+
+/**
+ * Finds the promotion that applies to an item, if there is one.
+ */
+@FunctionalInterface
+public interface LinePromotionSource {
+	/**
+	 * A source without any promotions.
+	 */
+	LinePromotionSource NONE = itemId -> Optional.empty();
+
+	/**
+	 * Finds the promotion for the specified item.
+	 *
+	 * @param itemId The ID of the item.
+	 * @return The promotion, or an empty Optional if the item has no promotion.
+	 */
+	Optional<LinePromotion> findPromotion(String itemId);
+}
@@ -0,0 +1,47 @@
+package model.discount;
+
+import model.Amount;
+
+/**
+ * The kinds of line promotions that the discount catalog can describe. The meaning of the promotion value depends on
+ * the type.
+ */
+public enum PromotionType {
+	/**
+	 * Buy a group of units and pay for fewer, the value is the number of paid units in a group.
+	 */
+	BUY_N_PAY_M {
+		@Override
+		LinePromotion createPromotion(int groupSize, Amount value, String description) {
+			return new BuyNPayMPromotion(groupSize, value, description);
+		}
+	},
+	/**
+	 * A bundle of units for a fixed price, the value is the bundle price including VAT.
+	 */
+	BUNDLE_PRICE {
+		@Override
+		LinePromotion createPromotion(int groupSize, Amount value, String description) {
+			return new BundlePricePromotion(groupSize, value, description);
+		}
+	},
+	/**
+	 * A percentage off every unit, the value is the percentage in decimal form. The group size is not used.
+	 */
+	ITEM_PERCENT {
+		@Override
+		LinePromotion createPromotion(int groupSize, Amount value, String description) {
+			return new ItemPercentagePromotion(value, description);
+		}
+	};
+
+	/**
+	 * Creates a promotion of this type.
+	 *
+	 * @param groupSize   The number of units the promotion applies to at a time.
+	 * @param value       The promotion value.
+	 * @param description The description of the promotion.
+	 * @return The new promotion.
+	 */
+	abstract LinePromotion createPromotion(int groupSize, Amount value, String description);
+}
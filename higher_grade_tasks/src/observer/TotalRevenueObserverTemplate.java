@@ -1,21 +1,23 @@
 package observer;
 
 import model.Amount;
+import model.AmountAccumulator;
 
 /**
- * Template class for total revenue observers using the Template Method pattern.
+ * Template class for total revenue observers using the Template Method pattern. Updates from sales finalized at
+ * different lanes are handled one at a time.
  */
 public abstract class TotalRevenueObserverTemplate implements TotalRevenueObserver {
-    protected Amount totalRevenue = new Amount();
+    protected final AmountAccumulator totalRevenue = new AmountAccumulator();
 
     @Override
-    public void updateTotalRevenue(Amount saleAmount) {
+    public synchronized void updateTotalRevenue(Amount saleAmount) {
         calculateTotalIncome(saleAmount);
         showTotalIncome();
     }
 
     protected void calculateTotalIncome(Amount saleAmount) {
-        totalRevenue = totalRevenue.add(saleAmount);
+        totalRevenue.add(saleAmount);
     }
 
     private void showTotalIncome() {
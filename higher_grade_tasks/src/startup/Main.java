@@ -1,20 +1,75 @@
 package startup;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 import controller.Controller;
+import dto.CatalogLoadDTO;
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.DiscountCatalogWatcher;
+import integration.DiscountRuleFormatException;
+import integration.InventoryCatalogLoader;
+import integration.InventorySystem;
+import integration.PrintSpooler;
+import integration.ReceiptArchive;
+import integration.SalesJournal;
+import model.discount.DiscountFactory;
 import view.View;
 
 /**
  * This class serves as the entry point for the application.
  */
 public class Main {
+	private static final int PRINT_QUEUE_CAPACITY = 64;
+	private static final String PRINT_OVERFLOW_FILE = "receipts-overflow.txt";
+	private static final String RECEIPT_ARCHIVE_DIRECTORY = "receipt-archive";
+	private static final String SALES_JOURNAL_FILE = "sales.journal";
+	private static final String NO_CATALOG = "-";
+
 	/**
 	 * The main method that starts the application.
 	 *
-	 * @param args Command-line arguments (not used).
+	 * @param args Command-line arguments. An optional path to an item catalog CSV file to load into the inventory,
+	 *             followed by an optional path to a discount rule file that is reloaded whenever it changes. Give
+	 *             <code>-</code> as the catalog to use the built-in items together with a rule file.
+	 * @throws IOException                 if the item catalog, the discount rules, the receipt archive or the sales
+	 *                                     journal could not be loaded.
+	 * @throws DiscountRuleFormatException if a discount rule is malformed.
 	 */
-	public static void main(String[] args) {
-		Controller controller = new Controller();
-		View view = new View(controller);
-		view.simulateExecution();
+	public static void main(String[] args) throws IOException, DiscountRuleFormatException {
+		DiscountCatalog discountCatalog = new DiscountCatalog();
+		try (SalesJournal salesJournal = new SalesJournal(Path.of(SALES_JOURNAL_FILE));
+				ReceiptArchive receiptArchive = new ReceiptArchive(Path.of(RECEIPT_ARCHIVE_DIRECTORY));
+				PrintSpooler printer = new PrintSpooler(PRINT_QUEUE_CAPACITY, PrintSpooler.OverflowPolicy.DROP_TO_DISK,
+						Path.of(PRINT_OVERFLOW_FILE));
+				DiscountCatalogWatcher rulesWatcher = (args.length > 1)
+						? new DiscountCatalogWatcher(discountCatalog, Path.of(args[1]))
+						: null) {
+			if (rulesWatcher != null) {
+				rulesWatcher.start();
+			}
+			printer.useArchive(receiptArchive);
+			InventorySystem inventorySystem = (args.length > 0 && !NO_CATALOG.equals(args[0]))
+					? loadInventory(Path.of(args[0]))
+					: new InventorySystem();
+			Controller controller = new Controller(new AccountingSystem(salesJournal), inventorySystem,
+					new DiscountFactory(discountCatalog), printer);
+			View view = new View(controller);
+			view.simulateExecution();
+			controller.shutdown();
+		}
+	}
+
+	private static InventorySystem loadInventory(Path catalogFile) throws IOException {
+		InventorySystem inventorySystem = new InventorySystem();
+		CatalogLoadDTO loadInfo = new InventoryCatalogLoader(inventorySystem).load(catalogFile, true);
+		inventorySystem.useNegativeLookupFilter(0.01);
+
+		System.out.println("""
+				Loaded %d items in %d ms, heap grew by %d kB
+				""".formatted(loadInfo.loadedItemCount(), loadInfo.loadTimeMillis(),
+				loadInfo.heapGrowthBytes() / 1024));
+		return inventorySystem;
 	}
 }
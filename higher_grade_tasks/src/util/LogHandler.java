@@ -7,7 +7,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
- * This class is responsible for the log.
+ * This class is responsible for the log. It can be used from several threads.
  */
 public class LogHandler {
 	private static final String LOG_FILE_NAME = "exceptions.log";
@@ -37,13 +37,23 @@ public class LogHandler {
 	 * 
 	 * @param exception The exception that shall be logged.
 	 */
-	public void logException(Exception exception) {
+	public synchronized void logException(Exception exception) {
 		String logMessage = "%s, Exception was thrown: %s".formatted(createTime(), exception.getMessage());
 		logFile.println(logMessage);
 		exception.printStackTrace(logFile);
 		logFile.println("\n");
 	}
 
+	/**
+	 * Writes a log entry describing something that went wrong without an exception being thrown.
+	 * 
+	 * @param message A description of what went wrong.
+	 */
+	public synchronized void logWarning(String message) {
+		logFile.println("%s, Warning: %s".formatted(createTime(), message));
+		logFile.println("\n");
+	}
+
 	private String createTime() {
 		LocalDateTime now = LocalDateTime.now();
 		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
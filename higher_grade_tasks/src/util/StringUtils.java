@@ -1,30 +1,184 @@
 package util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
 
 /**
- * This class contains utility methods for string formatting.
+ * This class contains utility methods for string formatting. All methods are stateless and can be called from any
+ * thread.
  */
 public class StringUtils {
+	private static final String SPACES = " ".repeat(64);
+	private static final long[] POWERS_OF_TEN = {
+			1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+			10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+			1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L };
+
 	/**
 	 * Formats a BigDecimal to a string with two decimal places, replacing the decimal point with a colon.
-	 * 
+	 *
 	 * @param number The decimal number to format.
 	 * @return The formatted string with a colon instead of a decimal point.
 	 */
 	public static String formatBigDecimalToColon(BigDecimal number) {
-		DecimalFormat formatter = getStandardizedDecimalFormatter();
-		return formatter.format(number.setScale(2, RoundingMode.HALF_UP));
+		StringBuilder formatted = new StringBuilder(16);
+		appendColonized(formatted, number, 0);
+		return formatted.toString();
+	}
+
+	/**
+	 * Appends an amount given in hundredths, for example öre, with two decimal places and a colon as the decimal
+	 * separator.
+	 *
+	 * @param out        The builder to append to.
+	 * @param hundredths The amount multiplied by 100.
+	 */
+	public static void appendColonized(StringBuilder out, long hundredths) {
+		appendColonized(out, hundredths, 0);
+	}
+
+	/**
+	 * Appends an amount given in hundredths right aligned in a column of the specified width. Nothing is cut if the
+	 * amount is wider than the column.
+	 *
+	 * @param out        The builder to append to.
+	 * @param hundredths The amount multiplied by 100.
+	 * @param width      The minimum number of characters to append.
+	 */
+	public static void appendColonized(StringBuilder out, long hundredths, int width) {
+		try {
+			appendColonized((Appendable) out, hundredths, width);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Appends an amount given in hundredths right aligned in a column of the specified width.
+	 *
+	 * @param out        The destination to append to.
+	 * @param hundredths The amount multiplied by 100.
+	 * @param width      The minimum number of characters to append.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public static void appendColonized(Appendable out, long hundredths, int width) throws IOException {
+		if (hundredths == Long.MIN_VALUE) {
+			appendColonized(out, BigDecimal.valueOf(hundredths, 2), width);
+			return;
+		}
+
+		boolean negative = hundredths < 0;
+		long magnitude = Math.abs(hundredths);
+		long wholeUnits = magnitude / 100;
+		int fraction = (int) (magnitude % 100);
+		int wholeDigits = countDigits(wholeUnits);
+
+		appendPadding(out, width - (negative ? 1 : 0) - wholeDigits - 3);
+		if (negative) {
+			out.append('-');
+		}
+		for (int digit = wholeDigits - 1; digit >= 0; digit--) {
+			out.append((char) ('0' + (wholeUnits / POWERS_OF_TEN[digit]) % 10));
+		}
+		out.append(':');
+		out.append((char) ('0' + fraction / 10));
+		out.append((char) ('0' + fraction % 10));
+	}
+
+	/**
+	 * Appends a BigDecimal rounded to two decimal places right aligned in a column of the specified width.
+	 *
+	 * @param out    The builder to append to.
+	 * @param number The decimal number to format.
+	 * @param width  The minimum number of characters to append.
+	 */
+	public static void appendColonized(StringBuilder out, BigDecimal number, int width) {
+		try {
+			appendColonized((Appendable) out, number, width);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Appends a BigDecimal rounded to two decimal places right aligned in a column of the specified width.
+	 *
+	 * @param out    The destination to append to.
+	 * @param number The decimal number to format.
+	 * @param width  The minimum number of characters to append.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public static void appendColonized(Appendable out, BigDecimal number, int width) throws IOException {
+		BigDecimal rounded = number.setScale(2, RoundingMode.HALF_UP);
+		if (rounded.unscaledValue().bitLength() < 64 && rounded.unscaledValue().longValue() != Long.MIN_VALUE) {
+			appendColonized(out, rounded.unscaledValue().longValue(), width);
+			return;
+		}
+
+		String plain = rounded.toPlainString().replace('.', ':');
+		appendPadding(out, width - plain.length());
+		out.append(plain);
+	}
+
+	/**
+	 * Appends the specified number of spaces. Nothing is appended if the count is zero or negative.
+	 *
+	 * @param out   The builder to append to.
+	 * @param count The number of spaces.
+	 */
+	public static void appendPadding(StringBuilder out, int count) {
+		for (int remaining = count; remaining > 0; remaining -= SPACES.length()) {
+			out.append(SPACES, 0, Math.min(remaining, SPACES.length()));
+		}
+	}
+
+	/**
+	 * Appends the specified number of spaces. Nothing is appended if the count is zero or negative.
+	 *
+	 * @param out   The destination to append to.
+	 * @param count The number of spaces.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public static void appendPadding(Appendable out, int count) throws IOException {
+		for (int remaining = count; remaining > 0; remaining -= SPACES.length()) {
+			out.append(SPACES, 0, Math.min(remaining, SPACES.length()));
+		}
+	}
+
+	/**
+	 * Appends a whole number right aligned in a column of the specified width, without creating a String.
+	 *
+	 * @param out   The destination to append to.
+	 * @param value The number to append.
+	 * @param width The minimum number of characters to append.
+	 * @throws IOException if the destination could not be written.
+	 */
+	public static void appendRightAligned(Appendable out, long value, int width) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			String digits = String.valueOf(value);
+			appendPadding(out, width - digits.length());
+			out.append(digits);
+			return;
+		}
+
+		long magnitude = Math.abs(value);
+		int digits = countDigits(magnitude);
+		appendPadding(out, width - digits - ((value < 0) ? 1 : 0));
+		if (value < 0) {
+			out.append('-');
+		}
+		for (int digit = digits - 1; digit >= 0; digit--) {
+			out.append((char) ('0' + (magnitude / POWERS_OF_TEN[digit]) % 10));
+		}
 	}
 
-	private static DecimalFormat getStandardizedDecimalFormatter() {
-		DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.US);
-		symbols.setDecimalSeparator(':');
-		DecimalFormat formatter = new DecimalFormat("0.00", symbols);
-		return formatter;
+	private static int countDigits(long value) {
+		int digits = 1;
+		while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+			digits++;
+		}
+		return digits;
 	}
 }
@@ -1,9 +1,10 @@
 package view;
 
+import java.util.Optional;
+
 import controller.Controller;
 import dto.ItemDTO;
 import dto.SaleInfoDTO;
-import integration.ItemNotFoundException;
 import model.Amount;
 
 /**
@@ -79,11 +80,14 @@ public class View {
 	
 	private void tryEnterItem(String itemId) {
 		try {
-			displayRunningInfo(controller.enterItem(itemId));
-		} catch (ItemNotFoundException e) {
-			displayUiErrorMessage("""
-					Item with ID %s not found
-					""".formatted(itemId));
+			Optional<SaleInfoDTO> saleInfo = controller.enterItemIfExists(itemId);
+			if (saleInfo.isPresent()) {
+				displayRunningInfo(saleInfo.get());
+			} else {
+				displayUiErrorMessage("""
+						Item with ID %s not found
+						""".formatted(itemId));
+			}
 		} catch (RuntimeException e) {
 			displayUiErrorMessage("""
 					A system error occurred. Please try again or contact support.
@@ -101,9 +105,10 @@ public class View {
 		String description = currentItem.description();
 		String totalPrice = saleInfo.totalPrice().colonized();
 		String totalVat = saleInfo.totalVat().colonized();
+		int quantity = saleInfo.quantity();
 
 		System.out.println("""
-				Add 1 item with item id %s:
+				Add %d item with item id %s:
 				Item ID: %s
 				Item name: %s
 				Item cost: %s SEK
@@ -112,7 +117,7 @@ public class View {
 
 				Total cost (incl VAT): %s SEK
 				Total VAT: %s SEK
-				""".formatted(id, id, name, price, vat, description, totalPrice, totalVat));
+				""".formatted(quantity, id, id, name, price, vat, description, totalPrice, totalVat));
 	}
 
 	private void displayEndSaleInfo(Amount totalPrice) {
@@ -1,14 +1,33 @@
 package controller;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import dto.ReceiptDTO;
+import dto.SaleDTO;
 import dto.SaleInfoDTO;
+import integration.AccountingSystem;
+import integration.CircuitBreaker;
+import integration.CircuitOpenException;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
 import integration.ItemNotFoundException;
+import integration.Printer;
 import model.Amount;
+import model.discount.DiscountFactory;
 
 public class ControllerTest {
 	private Controller controller;
@@ -28,6 +47,7 @@ public class ControllerTest {
 
 	@AfterEach
 	public void tearDown() {
+		controller.shutdown();
 		controller = null;
 
 		printoutBuffer = null;
@@ -53,6 +73,17 @@ public class ControllerTest {
 		assertNotNull(saleInfo.currentItem(), "Current item in SaleInfoDTO should not be null.");
 	}
 
+	@Test
+	public void testEnterItemWithQuantity() throws ItemNotFoundException {
+		controller.startSale();
+
+		SaleInfoDTO saleInfo = controller.enterItem("abc123", 2);
+		controller.enterItem("def456");
+
+		assertEquals(2, saleInfo.quantity(), "SaleInfoDTO should report the entered quantity.");
+		assertEquals(0, controller.endSale().compareTo(new Amount("74.70")), "Total Price should be 74.70 SEK.");
+	}
+
 	@Test
 	public void testEnterInvalidItem() {
 		controller.startSale();
@@ -99,4 +130,157 @@ public class ControllerTest {
 		assertEquals(0, totalPrice.compareTo(expectedTotalPrice), "Total Price should be 74.70 SEK.");
 		assertEquals(0, change.compareTo(expectedChange), "Change should be 25.30 SEK.");
 	}
+
+	@Test
+	public void testLanesHaveIndependentSales() throws ItemNotFoundException {
+		controller.startSale(1);
+		controller.startSale(2);
+
+		controller.enterItem(1, "abc123");
+		controller.enterItem(2, "def456");
+		controller.enterItem(1, "abc123");
+
+		assertEquals(0, controller.endSale(1).compareTo(new Amount("59.80")), "Lane 1 should only contain its items.");
+		assertEquals(0, controller.endSale(2).compareTo(new Amount("14.90")), "Lane 2 should only contain its items.");
+	}
+
+	@Test
+	public void testFinalizedLaneHasNoSale() {
+		controller.startSale(3);
+		controller.endSale(3);
+		controller.finalizeSaleWithPayment(3, new Amount("100"));
+
+		assertThrows(IllegalStateException.class, () -> controller.enterItem(3, "abc123"),
+				"A finalized lane should require a new sale.");
+	}
+
+	@Test
+	public void testConcurrentLanes() throws Exception {
+		int laneCount = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		List<Future<Amount>> changes = new ArrayList<>();
+
+		for (int lane = 1; lane <= laneCount; lane++) {
+			int laneId = lane;
+			changes.add(executor.submit(() -> {
+				controller.startSale(laneId);
+				controller.enterItem(laneId, "abc123");
+				controller.enterItem(laneId, "def456");
+				controller.endSale(laneId);
+				return controller.finalizeSaleWithPayment(laneId, new Amount("100"));
+			}));
+		}
+		executor.shutdown();
+
+		for (Future<Amount> change : changes) {
+			assertEquals(0, change.get().compareTo(new Amount("55.20")), "Every lane should get correct change.");
+		}
+	}
+
+	@Test
+	public void testFinalizeSaleWithPaymentAsync() throws Exception {
+		controller.startSale();
+		controller.enterItem("abc123");
+		controller.enterItem("abc123");
+		controller.enterItem("def456");
+		controller.endSale();
+
+		FinalizedSale finalizedSale = controller.finalizeSaleWithPaymentAsync(new Amount("100"));
+
+		assertEquals(0, finalizedSale.getChange().compareTo(new Amount("25.30")), "Change should be 25.30 SEK.");
+		finalizedSale.getAllCompleted().get(5, TimeUnit.SECONDS);
+		assertTrue(printoutBuffer.toString().contains("Begin receipt"), "Receipt should be printed.");
+	}
+
+	@Test
+	public void testAsyncStageFailureDoesNotStopOtherStages() throws Exception {
+		Printer failingPrinter = new Printer() {
+			@Override
+			public void printReceipt(ReceiptDTO receiptDTO) {
+				throw new IllegalStateException("Printer is out of paper");
+			}
+		};
+		Controller failingController = new Controller(new AccountingSystem(), new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), failingPrinter);
+
+		failingController.startSale();
+		failingController.enterItem("abc123");
+		failingController.endSale();
+		FinalizedSale finalizedSale = failingController.finalizeSaleWithPaymentAsync(new Amount("100"));
+
+		finalizedSale.getAccounted().get(5, TimeUnit.SECONDS);
+		finalizedSale.getInventoryUpdated().get(5, TimeUnit.SECONDS);
+		ExecutionException exception = assertThrows(ExecutionException.class,
+				() -> finalizedSale.getPrinted().get(5, TimeUnit.SECONDS));
+		assertEquals("Printer is out of paper", exception.getCause().getMessage(),
+				"The printing failure should be reported.");
+		failingController.shutdown();
+	}
+
+	@Test
+	public void testAccountingFailureDoesNotStopPrinting() throws ItemNotFoundException {
+		AccountingSystem failingAccountingSystem = new AccountingSystem() {
+			@Override
+			public void account(SaleDTO saleDTO) {
+				throw new UncheckedIOException(new IOException("Journal disk is full"));
+			}
+		};
+		Controller failingController = new Controller(failingAccountingSystem, new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new Printer());
+
+		failingController.startSale();
+		failingController.enterItem("abc123");
+		failingController.endSale();
+		Amount change = failingController.finalizeSaleWithPayment(new Amount("100"));
+
+		assertNotNull(change, "Change should be returned although the sale was not recorded.");
+		assertTrue(printoutBuffer.toString().contains("End receipt"), "Receipt should be printed anyway.");
+		failingController.shutdown();
+	}
+
+	@Test
+	public void testAsyncFinalizationAfterShutdownKeepsSale() throws Exception {
+		controller.startSale();
+		controller.enterItem("abc123");
+		controller.endSale();
+		controller.shutdown();
+
+		assertThrows(IllegalStateException.class, () -> controller.finalizeSaleWithPaymentAsync(new Amount("100")),
+				"A shut down controller should refuse asynchronous finalization.");
+		assertDoesNotThrow(() -> controller.finalizeSaleWithPayment(new Amount("100")),
+				"The refused sale should still be at the lane.");
+	}
+
+	@Test
+	public void testRefusedAsyncFinalizationDoesNotCountRevenue() throws ItemNotFoundException {
+		List<Amount> revenues = new ArrayList<>();
+		controller.registerObserver(revenues::add);
+		controller.startSale();
+		controller.enterItem("abc123");
+		controller.endSale();
+		controller.shutdown();
+
+		assertThrows(IllegalStateException.class, () -> controller.finalizeSaleWithPaymentAsync(new Amount("100")),
+				"A shut down controller should refuse asynchronous finalization.");
+		controller.finalizeSaleWithPayment(new Amount("100"));
+
+		assertEquals(1, revenues.size(), "The sale should be counted once.");
+	}
+
+	@Test
+	public void testOpenCircuitIsReportedWithoutStackTrace() throws ItemNotFoundException {
+		InventorySystem inventorySystem = new InventorySystem();
+		inventorySystem.useCircuitBreaker(new CircuitBreaker(1, Duration.ofMinutes(1)));
+		Controller guardedController = new Controller(new AccountingSystem(), inventorySystem,
+				new DiscountFactory(new DiscountCatalog()), new Printer());
+		guardedController.startSale();
+
+		assertThrows(RuntimeException.class, () -> guardedController.enterItem("fail114514"),
+				"Database failure should be reported.");
+		CircuitOpenException exception = assertThrows(CircuitOpenException.class,
+				() -> guardedController.enterItem("abc123"), "Open circuit should be reported as it is.");
+
+		assertEquals(0, exception.getStackTrace().length, "Rejected scan should not record a stack trace.");
+		guardedController.shutdown();
+	}
 }
@@ -0,0 +1,87 @@
+package integration;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class AccountingSystemTest {
+	private static final LocalDateTime START = LocalDateTime.parse("2024-02-12T16:05:30.125");
+
+	private AccountingSystem accountingSystem;
+	private ItemDTO apple;
+	private ItemDTO bread;
+
+	@BeforeEach
+	public void setUp() {
+		accountingSystem = new AccountingSystem();
+		apple = new ItemDTO("apple", "Apple", new Amount("4.50"), new Amount("0.12"), "Green");
+		bread = new ItemDTO("bread", "Bread", new Amount("29.9"), new Amount("0.06"), "Rye");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		accountingSystem = null;
+	}
+
+	@Test
+	public void testRecordedSaleIsRebuilt() {
+		accountingSystem.account(createSale(START, 3, 1, new Amount("46.826")));
+
+		SaleDTO recorded = accountingSystem.getSale(0);
+
+		assertEquals(START, recorded.saleDateTime(), "Time of sale was not recorded.");
+		assertEquals(new Amount("46.83"), recorded.totalPrice(), "Total price should be rounded to hundredths.");
+		assertEquals(2, recorded.saleLines().size(), "Sale lines were not recorded.");
+		assertEquals(apple, recorded.saleLines().get(0).item(), "Item of the first line was not recorded.");
+		assertEquals(3, recorded.saleLines().get(0).quantity(), "Quantity of the first line was not recorded.");
+		assertEquals(bread, recorded.saleLines().get(1).item(), "Item of the second line was not recorded.");
+	}
+
+	@Test
+	public void testSumsCoverEverySale() {
+		int saleCount = 10_000;
+		for (int i = 0; i < saleCount; i++) {
+			accountingSystem.account(createSale(START.plusMinutes(i), 2, i % 3, new Amount("10.05")));
+		}
+
+		assertEquals(saleCount, accountingSystem.getSaleCount(), "Not every sale was recorded.");
+		assertEquals(new Amount("100500"), accountingSystem.getTotalRevenue(), "Wrong total revenue.");
+		assertEquals(new Amount("1005"), accountingSystem.getRevenue(START, START.plusMinutes(100)),
+				"Wrong revenue of the period.");
+		assertEquals(2L * saleCount, accountingSystem.getSoldQuantity("apple"), "Wrong sold quantity.");
+		assertEquals(9_999, accountingSystem.getSoldQuantity("bread"), "Wrong sold quantity.");
+		assertEquals(0, accountingSystem.getSoldQuantity("milk"), "Unsold item should have no quantity.");
+		assertEquals(START.plusMinutes(saleCount - 1), accountingSystem.getSale(saleCount - 1).saleDateTime(),
+				"Last sale was not recorded.");
+	}
+
+	@Test
+	public void testChangedItemKeepsOldSales() {
+		accountingSystem.account(createSale(START, 1, 0, new Amount("5")));
+		apple = new ItemDTO("apple", "Apple", new Amount("5.00"), new Amount("0.12"), "Green");
+		accountingSystem.account(createSale(START, 1, 0, new Amount("5.6")));
+
+		assertEquals(new Amount("4.50"), accountingSystem.getSale(0).saleLines().get(0).item().price(),
+				"Old sale should keep the old price.");
+		assertEquals(new Amount("5.00"), accountingSystem.getSale(1).saleLines().get(0).item().price(),
+				"New sale should have the new price.");
+		assertEquals(2, accountingSystem.getSoldQuantity("apple"), "Both versions of the item should be counted.");
+	}
+
+	private SaleDTO createSale(LocalDateTime saleDateTime, int apples, int breads, Amount totalPrice) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(apple, apples));
+		if (breads > 0) {
+			saleLines.add(new SaleLineDTO(bread, breads));
+		}
+		return new SaleDTO(saleDateTime, saleLines, totalPrice, new Amount("2.5"), new Amount("100"),
+				new Amount(100, 0).subtract(totalPrice), new Amount());
+	}
+}
@@ -0,0 +1,85 @@
+package integration;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+	private AtomicLong now;
+	private CircuitBreaker circuitBreaker;
+
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong();
+		circuitBreaker = new CircuitBreaker(3, Duration.ofSeconds(10), now::get);
+	}
+
+	@Test
+	public void testCircuitOpensAfterFailureThreshold() {
+		failCalls(2);
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(),
+				"Circuit should stay closed below the threshold.");
+
+		failCalls(1);
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(),
+				"Circuit should open at the threshold.");
+		assertThrows(CircuitOpenException.class, circuitBreaker::acquirePermission,
+				"Open circuit should fail at once.");
+		assertEquals(1, circuitBreaker.getOpenedCount(), "Opening should be counted.");
+		assertEquals(1, circuitBreaker.getRejectedCount(), "Rejected call should be counted.");
+	}
+
+	@Test
+	public void testSuccessResetsFailureCount() {
+		failCalls(2);
+		circuitBreaker.acquirePermission();
+		circuitBreaker.recordSuccess();
+		failCalls(2);
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(),
+				"Only failures in a row should open the circuit.");
+	}
+
+	@Test
+	public void testSuccessfulProbeClosesCircuit() {
+		failCalls(3);
+		now.set(Duration.ofSeconds(10).toNanos());
+
+		circuitBreaker.acquirePermission();
+		assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(),
+				"Circuit should be half-open after the probe interval.");
+		assertThrows(CircuitOpenException.class, circuitBreaker::acquirePermission,
+				"Only one probe call should be let through.");
+
+		circuitBreaker.recordSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(),
+				"Successful probe should close the circuit.");
+		assertEquals(1, circuitBreaker.getHalfOpenedCount(), "Half-opening should be counted.");
+		assertEquals(1, circuitBreaker.getClosedCount(), "Closing should be counted.");
+	}
+
+	@Test
+	public void testFailedProbeOpensCircuitAgain() {
+		failCalls(3);
+		now.set(Duration.ofSeconds(10).toNanos());
+
+		failCalls(1);
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(),
+				"Failed probe should open the circuit again.");
+
+		now.set(Duration.ofSeconds(15).toNanos());
+		CircuitOpenException exception = assertThrows(CircuitOpenException.class,
+				circuitBreaker::acquirePermission, "Probe interval should restart when the circuit opens again.");
+		assertEquals(5000, exception.getRetryAfterMillis(), "Remaining wait should be reported.");
+		assertEquals(2, circuitBreaker.getOpenedCount(), "Both openings should be counted.");
+	}
+
+	private void failCalls(int count) {
+		for (int i = 0; i < count; i++) {
+			circuitBreaker.acquirePermission();
+			circuitBreaker.recordFailure();
+		}
+	}
+}
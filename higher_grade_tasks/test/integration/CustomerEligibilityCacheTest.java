@@ -0,0 +1,49 @@
+package integration;
+
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerEligibilityCacheTest {
+	private DiscountRuleSet.CustomerEligibility eligibility;
+
+	@BeforeEach
+	public void setUp() {
+		eligibility = new DiscountRuleSet.CustomerEligibility(new int[] { 1 }, new int[] { 1 });
+	}
+
+	@Test
+	public void testCachedEligibilityIsFound() {
+		CustomerEligibilityCache cache = new CustomerEligibilityCache(16);
+		assertNull(cache.get(114514, 1), "Empty cache should miss.");
+
+		cache.put(114514, 1, eligibility);
+
+		assertSame(eligibility, cache.get(114514, 1), "Cached eligibility should be found.");
+		assertEquals(1, cache.getHitCount(), "Hit should be counted.");
+		assertEquals(1, cache.getMissCount(), "Miss should be counted.");
+		assertEquals(0.5, cache.getHitRate(), "Hit rate should be hits per lookup.");
+	}
+
+	@Test
+	public void testNewCatalogVersionInvalidatesEntries() {
+		CustomerEligibilityCache cache = new CustomerEligibilityCache(16);
+		cache.put(114514, 1, eligibility);
+
+		assertNull(cache.get(114514, 2), "Entry of an older catalog version should not be used.");
+	}
+
+	@Test
+	public void testOlderEntryOfSetIsPushedOut() {
+		CustomerEligibilityCache cache = new CustomerEligibilityCache(2);
+		for (int customerId : List.of(1, 2, 3)) {
+			cache.put(customerId, 1, eligibility);
+		}
+
+		assertNull(cache.get(1, 1), "Oldest customer should be pushed out.");
+		assertNotNull(cache.get(2, 1), "Second customer should stay cached.");
+		assertNotNull(cache.get(3, 1), "Newest customer should be cached.");
+		assertEquals(1, cache.getEvictionCount(), "Eviction should be counted.");
+	}
+}
@@ -0,0 +1,177 @@
+package integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.DiscountDTO;
+import dto.DiscountInfoDTO;
+import dto.ItemDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+import model.discount.DiscountType;
+
+public class DiscountCatalogTest {
+	private DiscountCatalog discountCatalog;
+	private ItemDTO milk;
+	private ItemDTO bread;
+
+	@BeforeEach
+	public void setUp() {
+		discountCatalog = new DiscountCatalog();
+		milk = new ItemDTO("milk1", "Milk", new Amount("15"), new Amount("0.12"), "desc");
+		bread = new ItemDTO("bread1", "Bread", new Amount("30"), new Amount("0.12"), "desc");
+	}
+
+	@Test
+	public void testSimulatedRulesMatchPreviousCatalog() {
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog
+				.fetchEligibleDiscounts(createDiscountDTO(3, new Amount("150"), 114514));
+
+		assertEquals(List.of(DiscountType.ITEM_BASED, DiscountType.TOTAL_PERCENT, DiscountType.CUSTOMER_PERCENT),
+				discounts.stream().map(DiscountInfoDTO::type).toList(), "All three discounts should apply.");
+		assertTrue(discountCatalog.fetchEligibleDiscounts(createDiscountDTO(2, new Amount("100"), 1)).isEmpty(),
+				"Limits should be exclusive.");
+	}
+
+	@Test
+	public void testAllConditionsOfRuleMustBeMet() throws DiscountRuleFormatException {
+		discountCatalog.loadRules(List.of(
+				"# Members get more off on larger purchases",
+				"segment;MEMBERS;1001,1002",
+				"rule;TOTAL_PERCENT;0.15;total>=200 & segment=MEMBERS;15% off for members",
+				"rule;ITEM_BASED;10.00;sku=milk1 & sku=bread1;10 SEK off for milk and bread",
+				"rule;ITEM_BASED;1.00;;1 SEK off always"));
+
+		List<SaleLineDTO> saleLines = List.of(new SaleLineDTO(milk, 1), new SaleLineDTO(bread, 1));
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog.fetchEligibleDiscounts(
+				createDiscountDTO(saleLines, new Amount("200"), 1002));
+		assertEquals(List.of("15% off for members", "10 SEK off for milk and bread", "1 SEK off always"),
+				discounts.stream().map(DiscountInfoDTO::description).toList(), "Every met rule should apply.");
+
+		discounts = discountCatalog.fetchEligibleDiscounts(
+				createDiscountDTO(List.of(new SaleLineDTO(milk, 1)), new Amount("200"), 1003));
+		assertEquals(List.of("1 SEK off always"), discounts.stream().map(DiscountInfoDTO::description).toList(),
+				"Rules with unmet conditions should not apply.");
+	}
+
+	@Test
+	public void testEqualConditionsAreCompiledOnce() throws DiscountRuleFormatException {
+		DiscountRuleSet ruleSet = DiscountRuleParser.parse(List.of(
+				"rule;TOTAL_PERCENT;0.10;total>100;first",
+				"rule;ITEM_BASED;5;total>100.00 & items>2;second",
+				"rule;ITEM_BASED;5;items>=3;third"));
+
+		assertEquals(3, ruleSet.getRuleCount(), "Every rule should be kept.");
+		assertEquals(2, ruleSet.getConditionCount(), "Equal conditions should be merged.");
+	}
+
+	@Test
+	public void testMalformedRuleKeepsPreviousRules() {
+		DiscountRuleFormatException exception = assertThrows(DiscountRuleFormatException.class,
+				() -> discountCatalog.loadRules(List.of(
+						"rule;ITEM_BASED;5;items>2;fine",
+						"rule;ITEM_BASED;5;segment=UNKNOWN;broken")),
+				"Undefined segment should be reported.");
+
+		assertEquals(2, exception.getLineNumber(), "Failing line should be reported.");
+		assertEquals(3, discountCatalog.getRuleCount(), "Previous rules should be kept.");
+	}
+
+	@Test
+	public void testThresholdsAreFoundByBinarySearch() throws DiscountRuleFormatException {
+		ArrayList<String> ruleLines = new ArrayList<>();
+		for (int threshold = 1000; threshold > 0; threshold--) {
+			ruleLines.add("rule;ITEM_BASED;1;total>=%d;total %d".formatted(threshold, threshold));
+			ruleLines.add("rule;ITEM_BASED;1;items>%d;items %d".formatted(threshold, threshold));
+		}
+		discountCatalog.loadRules(ruleLines);
+
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog
+				.fetchEligibleDiscounts(createDiscountDTO(5, new Amount("10.00"), 1));
+
+		assertEquals(14, discounts.size(), "Every met threshold and no other should apply.");
+		assertEquals("total 10", discounts.get(0).description(), "Discounts should keep the rule order.");
+		assertEquals("items 1", discounts.get(13).description(), "Discounts should keep the rule order.");
+	}
+
+	@Test
+	public void testSegmentAndItemIndexes() throws DiscountRuleFormatException {
+		discountCatalog.loadRules(List.of(
+				"segment;STAFF;7,8,9",
+				"rule;CUSTOMER_PERCENT;0.20;segment=STAFF;staff",
+				"rule;CUSTOMER_PERCENT;0.05;customer=8;customer 8",
+				"rule;ITEM_BASED;2;sku=bread1;bread"));
+
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog.fetchEligibleDiscounts(
+				createDiscountDTO(List.of(new SaleLineDTO(bread, 2)), new Amount("60"), 8));
+
+		assertEquals(List.of("staff", "customer 8", "bread"),
+				discounts.stream().map(DiscountInfoDTO::description).toList(),
+				"Customer, segment and item rules should be found.");
+	}
+
+	@Test
+	public void testBuyNPayMMustLeaveUnitsFree() {
+		String[] invalidRules = { "promotion;BUY_N_PAY_M;milk1;3;4;buy 3 pay 4",
+				"promotion;BUY_N_PAY_M;milk1;3;3;buy 3 pay 3", "promotion;BUY_N_PAY_M;milk1;3;-1;buy 3 pay -1" };
+
+		for (String invalidRule : invalidRules) {
+			assertThrows(DiscountRuleFormatException.class, () -> discountCatalog.loadRules(List.of(invalidRule)),
+					"Promotion that does not lower the price should be rejected: " + invalidRule);
+		}
+		assertDoesNotThrow(() -> discountCatalog.loadRules(List.of("promotion;BUY_N_PAY_M;milk1;3;0;buy 3 pay 0")),
+				"Promotion with every unit free should be accepted.");
+	}
+
+	@Test
+	public void testItemCanHaveOnlyOnePromotion() {
+		DiscountRuleFormatException exception = assertThrows(DiscountRuleFormatException.class,
+				() -> discountCatalog.loadRules(List.of(
+						"promotion;BUNDLE_PRICE;milk1;2;25.00;2 for 25 SEK",
+						"promotion;ITEM_PERCENT;milk1;1;0.10;10% off milk")),
+				"Second promotion for the same item should be reported.");
+
+		assertEquals(2, exception.getLineNumber(), "Failing line should be reported.");
+		assertTrue(discountCatalog.fetchPromotion("milk1").isEmpty(), "Previous rules should be kept.");
+	}
+
+	@Test
+	public void testRuleCanJoinExclusivityGroups() throws DiscountRuleFormatException {
+		discountCatalog.loadRules(List.of("rule;ITEM_BASED;5;items>2 & group=coupon & group=spring;grouped"));
+
+		DiscountInfoDTO discount = discountCatalog.fetchEligibleDiscounts(createDiscountDTO(3, new Amount("1"), 1))
+				.get(0);
+
+		assertEquals(Set.of("coupon", "spring"), discount.exclusivityGroups(), "Groups should be parsed.");
+	}
+
+	@Test
+	public void testCustomerEligibilityIsCachedPerCatalogVersion() throws DiscountRuleFormatException {
+		DiscountDTO discountDTO = createDiscountDTO(1, new Amount("10"), 114514);
+		CustomerEligibilityCache cache = discountCatalog.getCustomerEligibilityCache();
+
+		discountCatalog.fetchEligibleDiscounts(discountDTO);
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog.fetchEligibleDiscounts(discountDTO);
+		assertEquals(1, cache.getHitCount(), "Returning customer should be found in the cache.");
+		assertEquals(List.of(DiscountType.CUSTOMER_PERCENT), discounts.stream().map(DiscountInfoDTO::type).toList(),
+				"Cached eligibility should give the same discounts.");
+
+		discountCatalog.loadRules(List.of("rule;CUSTOMER_PERCENT;0.07;customer=114514 & items>=1;new"));
+		discounts = discountCatalog.fetchEligibleDiscounts(discountDTO);
+		assertEquals(1, cache.getHitCount(), "Reloaded catalog should not use cached eligibility.");
+		assertEquals("new", discounts.get(0).description(), "New rules should be used.");
+	}
+
+	private DiscountDTO createDiscountDTO(int itemCount, Amount totalPrice, int customerId) {
+		return new DiscountDTO(new ArrayList<>(), itemCount, totalPrice, customerId);
+	}
+
+	private DiscountDTO createDiscountDTO(List<SaleLineDTO> saleLines, Amount totalPrice, int customerId) {
+		int itemCount = saleLines.stream().mapToInt(SaleLineDTO::quantity).sum();
+		return new DiscountDTO(new ArrayList<>(saleLines), itemCount, totalPrice, customerId);
+	}
+}
@@ -0,0 +1,72 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiscountCatalogWatcherTest {
+	@TempDir
+	Path tempDir;
+
+	private DiscountCatalog discountCatalog;
+	private Path rulesFile;
+	private DiscountCatalogWatcher watcher;
+
+	@BeforeEach
+	public void setUp() throws IOException, DiscountRuleFormatException {
+		discountCatalog = new DiscountCatalog();
+		rulesFile = tempDir.resolve("discounts.txt");
+		Files.writeString(rulesFile, "rule;ITEM_BASED;5;items>2;5 SEK off\n", StandardCharsets.UTF_8);
+		watcher = new DiscountCatalogWatcher(discountCatalog, rulesFile);
+		watcher.start();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		watcher.close();
+	}
+
+	@Test
+	public void testRulesAreLoadedAtStart() {
+		assertEquals(1, discountCatalog.getRuleCount(), "Rules in the file should replace the simulated rules.");
+	}
+
+	@Test
+	public void testChangedFileIsReloaded() throws IOException, InterruptedException {
+		long versionBefore = discountCatalog.getVersion();
+
+		Files.writeString(rulesFile, """
+				rule;ITEM_BASED;5;items>2;5 SEK off
+				rule;TOTAL_PERCENT;0.10;total>100;10% off
+				""", StandardCharsets.UTF_8);
+
+		assertTrue(waitFor(() -> watcher.getReloadCount() > 0), "Changed file should be reloaded.");
+		assertEquals(2, discountCatalog.getRuleCount(), "New rules should be published.");
+		assertTrue(discountCatalog.getVersion() > versionBefore, "Catalog version should change.");
+	}
+
+	@Test
+	public void testMalformedFileKeepsPreviousRules() throws IOException, InterruptedException {
+		Files.writeString(rulesFile, "rule;ITEM_BASED;five;items>2;broken\n", StandardCharsets.UTF_8);
+
+		assertTrue(waitFor(() -> watcher.getFailedReloadCount() > 0), "Failed reload should be counted.");
+		assertEquals(1, discountCatalog.getRuleCount(), "Previous rules should be kept.");
+	}
+
+	private boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			Thread.sleep(20);
+		}
+		return true;
+	}
+}
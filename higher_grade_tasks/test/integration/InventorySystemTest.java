@@ -1,12 +1,30 @@
 package integration;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import dto.CatalogLoadDTO;
+import dto.InventoryUpdateDTO;
 import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
 import model.Amount;
 
 public class InventorySystemTest {
@@ -15,6 +33,9 @@ public class InventorySystemTest {
 	private ByteArrayOutputStream printoutBuffer;
 	private PrintStream originalSysOut;
 
+	@TempDir
+	Path tempDir;
+
 	@BeforeEach
 	public void setUp() {
 		inventorySystem = new InventorySystem();
@@ -86,4 +107,215 @@ public class InventorySystemTest {
 		});
 		assertTrue(exception.getMessage().contains(invalidItemId));
 	}
+
+	@Test
+	void testUpdateInventoryReducesQuantityPerLine() {
+		ItemDTO item = new ItemDTO("stock1", "Stock item", new Amount("10"), new Amount("0.25"), "desc");
+		inventorySystem.addItem(item, 10);
+
+		inventorySystem.updateInventory(createSale(item, 3));
+		assertEquals(7, inventorySystem.getQuantity("stock1"), "Failed to reduce quantity.");
+
+		inventorySystem.updateInventory(createSale(item, 30));
+		assertEquals(0, inventorySystem.getQuantity("stock1"), "Quantity should not go below zero.");
+	}
+
+	@Test
+	void testBatchUpdateAggregatesSales() {
+		ItemDTO item = new ItemDTO("stock1", "Stock item", new Amount("10"), new Amount("0.25"), "desc");
+		inventorySystem.addItem(item, 100);
+
+		InventoryUpdateDTO result = inventorySystem.updateInventory(
+				List.of(createSale(item, 3), createSale(item, 4), createSale(item, 5)));
+
+		assertEquals(1, result.updatedItemCount(), "Item should be updated once for all sales.");
+		assertEquals(88, inventorySystem.getQuantity("stock1"), "Failed to reduce aggregated quantity.");
+	}
+
+	@Test
+	void testUpdateInventoryReportsUnknownItems() {
+		ItemDTO known = new ItemDTO("stock1", "Stock item", new Amount("10"), new Amount("0.25"), "desc");
+		ItemDTO unknown = new ItemDTO("gone1", "Removed item", new Amount("10"), new Amount("0.25"), "desc");
+		inventorySystem.addItem(known, 10);
+
+		InventoryUpdateDTO result = inventorySystem.updateInventory(
+				List.of(createSale(unknown, 1), createSale(known, 2)));
+
+		assertEquals(List.of("gone1"), result.unknownItemIds(), "Unknown item should be reported.");
+		assertEquals(8, inventorySystem.getQuantity("stock1"), "Known item should still be updated.");
+	}
+
+	@Test
+	void testConcurrentUpdatesLoseNoUnits() throws InterruptedException {
+		ItemDTO item = new ItemDTO("stock1", "Stock item", new Amount("10"), new Amount("0.25"), "desc");
+		int threadCount = 16;
+		int salesPerThread = 5000;
+		int initialQuantity = 200_000;
+		inventorySystem.addItem(item, initialQuantity);
+
+		runConcurrently(threadCount, salesPerThread, createSale(item, 1));
+
+		assertEquals(initialQuantity - threadCount * salesPerThread, inventorySystem.getQuantity("stock1"),
+				"Concurrent updates should not lose any decrement.");
+	}
+
+	@Test
+	void testConcurrentUpdatesStopAtZero() throws InterruptedException {
+		ItemDTO item = new ItemDTO("stock1", "Stock item", new Amount("10"), new Amount("0.25"), "desc");
+		inventorySystem.addItem(item, 1000);
+
+		runConcurrently(16, 500, createSale(item, 3));
+
+		assertEquals(0, inventorySystem.getQuantity("stock1"), "Quantity should stop at zero.");
+	}
+
+	private void runConcurrently(int threadCount, int salesPerThread, SaleDTO sale) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		CountDownLatch start = new CountDownLatch(1);
+
+		for (int i = 0; i < threadCount; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int j = 0; j < salesPerThread; j++) {
+					inventorySystem.updateInventory(sale);
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Updates did not finish in time.");
+	}
+
+	private SaleDTO createSale(ItemDTO item, int quantity) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(item, quantity));
+		return new SaleDTO(LocalDateTime.now(), saleLines, new Amount(), new Amount(), new Amount(), new Amount(),
+				new Amount());
+	}
+
+	@Test
+	void testLoadCatalogFromCsv() throws IOException, ItemNotFoundException {
+		Path catalogFile = tempDir.resolve("catalog.csv");
+		Files.writeString(catalogFile, """
+				id,name,gross price,VAT rate,description,quantity
+				abc123,BigWheel Oatmeal,29.9,0.06,"BigWheel Oatmeal 500g, whole grain oats, high fiber, gluten free",5
+				csv001,Smörgås,12.50,0.12,"Bread ""fresh""\",10
+				""", StandardCharsets.UTF_8);
+
+		CatalogLoadDTO loadInfo = new InventoryCatalogLoader(inventorySystem).load(catalogFile, false);
+
+		Amount vatAmount = new Amount("0.06");
+		ItemDTO expectedItem = new ItemDTO("abc123", "BigWheel Oatmeal",
+				calculateOriginalPrice(new Amount("29.9"), vatAmount), vatAmount,
+				"BigWheel Oatmeal 500g, whole grain oats, high fiber, gluten free");
+		ItemDTO bread = inventorySystem.retrieveItem("csv001");
+
+		assertEquals(2, loadInfo.loadedItemCount(), "Header should not be loaded as an item.");
+		assertEquals(expectedItem, inventorySystem.retrieveItem("abc123"), "Failed to load quoted description.");
+		assertEquals(5, inventorySystem.getQuantity("abc123"), "Failed to load quantity.");
+		assertEquals("Smörgås", bread.name(), "Failed to decode UTF-8 name.");
+		assertEquals("Bread \"fresh\"", bread.description(), "Failed to unescape quotes.");
+		assertEquals(new Amount("12.50"), bread.price().multiply(new Amount("1.12")).rounded(),
+				"Failed to calculate price without VAT.");
+	}
+
+	@Test
+	void testLoadCatalogInParallelChunks() throws IOException, ItemNotFoundException {
+		Path catalogFile = tempDir.resolve("large.csv");
+		StringBuilder catalog = new StringBuilder();
+		int itemCount = 2000;
+		for (int i = 0; i < itemCount; i++) {
+			catalog.append("item").append(i).append(",Item ").append(i).append(",10.00,0.25,desc,").append(i)
+					.append('\n');
+		}
+		Files.writeString(catalogFile, catalog, StandardCharsets.UTF_8);
+
+		CatalogLoadDTO loadInfo = new InventoryCatalogLoader(inventorySystem, 100).load(catalogFile, true);
+
+		assertEquals(itemCount, loadInfo.loadedItemCount(), "Every record should be loaded once.");
+		assertEquals(new Amount("8"), inventorySystem.retrieveItem("item1999").price(), "Failed to parse price.");
+		assertEquals(1999, inventorySystem.getQuantity("item1999"), "Failed to parse quantity.");
+	}
+
+	@Test
+	void testLoadCatalogRejectsMalformedRecord() throws IOException {
+		Path catalogFile = tempDir.resolve("broken.csv");
+		Files.writeString(catalogFile, "bad1,Broken,12.x0,0.25,desc,1\n", StandardCharsets.UTF_8);
+
+		assertThrows(IOException.class, () -> new InventoryCatalogLoader(inventorySystem).load(catalogFile, false),
+				"Malformed price should be reported.");
+	}
+
+	@Test
+	void testFindItemReturnsEmptyForUnknownId() throws DatabaseFailureException {
+		assertTrue(inventorySystem.findItem("unknown").isEmpty(), "Unknown item should not be found.");
+		assertTrue(inventorySystem.findItem("abc123").isPresent(), "Known item should be found.");
+	}
+
+	@Test
+	void testItemNotFoundExceptionIsStackless() {
+		ItemNotFoundException exception = assertThrows(ItemNotFoundException.class,
+				() -> inventorySystem.retrieveItem("unknown"), "Unknown item should be reported.");
+
+		assertEquals(0, exception.getStackTrace().length, "Missing item should not record a stack trace.");
+		assertEquals("unknown", exception.getItemId(), "Exception should keep the missing ID.");
+		assertTrue(exception.getMessage().contains("unknown"), "Message should name the missing ID.");
+	}
+
+	@Test
+	void testNegativeLookupFilterSkipsDatabaseForUnknownIds() throws DatabaseFailureException {
+		AtomicInteger databaseCalls = new AtomicInteger();
+		InventorySystem countingInventory = new InventorySystem() {
+			@Override
+			protected ItemDTO fetchItem(String itemId) throws DatabaseFailureException {
+				databaseCalls.incrementAndGet();
+				return super.fetchItem(itemId);
+			}
+		};
+		countingInventory.useNegativeLookupFilter(0.0001);
+
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(countingInventory.findItem("missing" + i).isEmpty(), "Unknown item should not be found.");
+		}
+
+		assertTrue(databaseCalls.get() < 10, "Filter should keep unknown IDs away from the database.");
+		assertTrue(countingInventory.findItem("abc123").isPresent(), "Filter should never reject a known item.");
+	}
+
+	@Test
+	void testNegativeLookupFilterAcceptsItemsAddedLater() throws DatabaseFailureException {
+		inventorySystem.useNegativeLookupFilter(0.01);
+		inventorySystem.addItem(new ItemDTO("late1", "Late", new Amount("5"), new Amount("0.06"), "desc"), 3);
+
+		assertTrue(inventorySystem.findItem("late1").isPresent(), "Item added after the filter should be found.");
+	}
+
+	@Test
+	void testOpenCircuitFailsFastWithoutCallingDatabase() {
+		AtomicInteger databaseCalls = new AtomicInteger();
+		InventorySystem countingInventory = new InventorySystem() {
+			@Override
+			protected ItemDTO fetchItem(String itemId) throws DatabaseFailureException {
+				databaseCalls.incrementAndGet();
+				return super.fetchItem(itemId);
+			}
+		};
+		CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+		countingInventory.useCircuitBreaker(circuitBreaker);
+
+		for (int i = 0; i < 2; i++) {
+			assertThrows(DatabaseFailureException.class, () -> countingInventory.retrieveItem("fail114514"),
+					"Database failure should be reported.");
+		}
+		CircuitOpenException exception = assertThrows(CircuitOpenException.class,
+				() -> countingInventory.retrieveItem("abc123"), "Open circuit should fail at once.");
+
+		assertEquals(2, databaseCalls.get(), "Open circuit should not call the database.");
+		assertEquals(0, exception.getStackTrace().length, "Fast failure should not record a stack trace.");
+	}
 }
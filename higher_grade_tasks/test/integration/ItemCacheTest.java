@@ -0,0 +1,122 @@
+package integration;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import model.Amount;
+
+public class ItemCacheTest {
+	private ItemDTO item1;
+	private ItemDTO item2;
+	private ItemDTO item3;
+
+	@BeforeEach
+	public void setUp() {
+		item1 = new ItemDTO("item1", "Item 1", new Amount("10"), new Amount("0.25"), "desc");
+		item2 = new ItemDTO("item2", "Item 2", new Amount("20"), new Amount("0.25"), "desc");
+		item3 = new ItemDTO("item3", "Item 3", new Amount("30"), new Amount("0.25"), "desc");
+	}
+
+	@Test
+	public void testLeastRecentlyUsedItemIsEvicted() {
+		ItemCache cache = new ItemCache(2);
+		cache.put(item1);
+		cache.put(item2);
+		cache.get("item1");
+		cache.put(item3);
+
+		assertNotNull(cache.get("item1"), "Recently used item should stay cached.");
+		assertNull(cache.get("item2"), "Least recently used item should be evicted.");
+		assertEquals(1, cache.getEvictionCount(), "Eviction should be counted.");
+		assertEquals(2, cache.getHitCount(), "Hits should be counted.");
+		assertEquals(1, cache.getMissCount(), "Misses should be counted.");
+	}
+
+	@Test
+	public void testItemsExpireAfterTimeToLive() {
+		AtomicLong now = new AtomicLong();
+		ItemCache cache = new ItemCache(10, Duration.ofSeconds(5), now::get);
+		cache.put(item1);
+
+		now.set(Duration.ofSeconds(4).toNanos());
+		assertNotNull(cache.get("item1"), "Item should be cached before it expires.");
+
+		now.set(Duration.ofSeconds(5).toNanos());
+		assertNull(cache.get("item1"), "Item should expire after its time to live.");
+	}
+
+	@Test
+	public void testPriceChangeInvalidatesCachedItem() throws ItemNotFoundException {
+		InventorySystem inventorySystem = new InventorySystem();
+		ItemCache cache = new ItemCache(10);
+		inventorySystem.useItemCache(cache);
+
+		inventorySystem.retrieveItem("abc123");
+		inventorySystem.updatePrice("abc123", new Amount("25"));
+
+		assertEquals(new Amount("25"), inventorySystem.retrieveItem("abc123").price(),
+				"The new price should be returned after a price change.");
+	}
+
+	@Test
+	public void testPriceChangeDuringFetchIsNotHidden() throws ItemNotFoundException {
+		InventorySystem inventorySystem = new InventorySystem() {
+			private boolean changed;
+
+			@Override
+			protected ItemDTO fetchItem(String itemId) throws DatabaseFailureException {
+				ItemDTO fetched = super.fetchItem(itemId);
+				if (!changed) {
+					changed = true;
+					try {
+						updatePrice(itemId, new Amount("25"));
+					} catch (ItemNotFoundException e) {
+						fail("Item should exist.");
+					}
+				}
+				return fetched;
+			}
+		};
+		ItemCache cache = new ItemCache(10);
+		inventorySystem.useItemCache(cache);
+
+		inventorySystem.retrieveItem("abc123");
+
+		assertEquals(new Amount("25"), inventorySystem.retrieveItem("abc123").price(),
+				"An item fetched before a price change should not be cached.");
+	}
+
+	@Test
+	public void testAddedItemReplacesCachedItem() throws ItemNotFoundException {
+		InventorySystem inventorySystem = new InventorySystem();
+		ItemCache cache = new ItemCache(10);
+		inventorySystem.useItemCache(cache);
+		ItemDTO cached = inventorySystem.retrieveItem("abc123");
+
+		inventorySystem.addItem(new ItemDTO(cached.id(), cached.name(), new Amount("99"), cached.vat(),
+				cached.description()), 1);
+
+		assertEquals(new Amount("99"), inventorySystem.retrieveItem("abc123").price(),
+				"A replaced item should not be served from the cache.");
+	}
+
+	@Test
+	public void testCacheSavesDatabaseLatency() throws ItemNotFoundException {
+		InventorySystem inventorySystem = new LatencyInjectingInventorySystem(Duration.ofMillis(20));
+		ItemCache cache = new ItemCache(10);
+		inventorySystem.useItemCache(cache);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 50; i++) {
+			inventorySystem.retrieveItem("abc123");
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals(49, cache.getHitCount(), "Only the first lookup should reach the database.");
+		assertTrue(elapsedMillis < 50 * 20, "Cached lookups should not wait for the database.");
+	}
+}
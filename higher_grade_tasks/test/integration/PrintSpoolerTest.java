@@ -0,0 +1,193 @@
+package integration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class PrintSpoolerTest {
+	private ReceiptDTO receipt;
+	private BlockingChannel channel;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	public void setUp() {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("test1", "test1", new Amount("10"), new Amount("0.25"), "desc"), 2));
+		SaleDTO saleInfo = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines,
+				new Amount("25"), new Amount("5"), new Amount("30"), new Amount("5"), new Amount());
+		receipt = new ReceiptDTO(saleInfo);
+		channel = new BlockingChannel();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		channel.release();
+		receipt = null;
+		channel = null;
+	}
+
+	@Test
+	public void testWaitingReceiptsArePrintedTogether() throws InterruptedException {
+		PrintSpooler spooler = new PrintSpooler(16, PrintSpooler.OverflowPolicy.BLOCK, null, channel,
+				StandardCharsets.UTF_8);
+
+		spooler.printReceipt(receipt);
+		channel.awaitFirstWrite();
+		spooler.printReceipt(receipt);
+		spooler.printReceipt(receipt);
+		spooler.printReceipt(receipt);
+		assertEquals(3, spooler.getQueueDepth(), "Receipts should wait while the printer is busy.");
+		channel.release();
+		spooler.close();
+
+		assertEquals(4, spooler.getPrintedCount(), "All receipts should be printed.");
+		assertEquals(2, spooler.getBatchCount(), "Waiting receipts should be printed with one write.");
+		assertEquals(4, countReceipts(channel.output()), "Every receipt should be written whole.");
+		assertTrue(spooler.getMaxLatencyNanos() >= spooler.getAverageLatencyNanos(),
+				"Maximum latency should not be below the average.");
+	}
+
+	@Test
+	public void testFullQueueRejectsReceipt() throws InterruptedException {
+		PrintSpooler spooler = new PrintSpooler(1, PrintSpooler.OverflowPolicy.REJECT, null, channel,
+				StandardCharsets.UTF_8);
+
+		spooler.printReceipt(receipt);
+		channel.awaitFirstWrite();
+		spooler.printReceipt(receipt);
+
+		assertThrows(PrintQueueFullException.class, () -> spooler.printReceipt(receipt),
+				"Receipt should be rejected when the queue is full.");
+		assertEquals(1, spooler.getRejectedCount(), "Rejected receipt was not counted.");
+		assertEquals(1, spooler.getMaxQueueDepth(), "Queue should never hold more than its capacity.");
+		channel.release();
+		spooler.close();
+		assertEquals(2, spooler.getPrintedCount(), "Accepted receipts should still be printed.");
+	}
+
+	@Test
+	public void testFullQueueDropsReceiptToDisk() throws InterruptedException, IOException {
+		Path overflowFile = tempDir.resolve("overflow.txt");
+		PrintSpooler spooler = new PrintSpooler(1, PrintSpooler.OverflowPolicy.DROP_TO_DISK, overflowFile, channel,
+				StandardCharsets.UTF_8);
+
+		try (ReceiptArchive archive = new ReceiptArchive(tempDir.resolve("archive"))) {
+			spooler.useArchive(archive);
+			spooler.printReceipt(receipt);
+			channel.awaitFirstWrite();
+			spooler.printReceipt(receipt);
+			spooler.printReceipt(receipt);
+			channel.release();
+			spooler.close();
+
+			assertEquals(3, archive.getReceiptCount(), "Overflowing receipt should be archived as well.");
+		}
+		assertEquals(1, spooler.getSpilledCount(), "Overflowing receipt was not counted.");
+		assertEquals(1, countReceipts(Files.readString(overflowFile, StandardCharsets.UTF_8)),
+				"Overflowing receipt should be written to the overflow file.");
+		assertEquals(2, countReceipts(channel.output()), "Queued receipts should be printed.");
+	}
+
+	@Test
+	public void testClosedSpoolerRefusesReceipts() {
+		PrintSpooler spooler = new PrintSpooler(1, PrintSpooler.OverflowPolicy.BLOCK, null, channel,
+				StandardCharsets.UTF_8);
+		spooler.close();
+
+		assertThrows(IllegalStateException.class, () -> spooler.printReceipt(receipt),
+				"Closed spooler should not accept receipts.");
+	}
+
+	@Test
+	public void testReceiptBlockedOnFullQueueIsPrintedWhenClosing() throws InterruptedException {
+		PrintSpooler spooler = new PrintSpooler(1, PrintSpooler.OverflowPolicy.BLOCK, null, channel,
+				StandardCharsets.UTF_8);
+		spooler.printReceipt(receipt);
+		channel.awaitFirstWrite();
+		spooler.printReceipt(receipt);
+		Thread lane = new Thread(() -> spooler.printReceipt(receipt));
+		lane.start();
+		while (lane.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+		Thread closer = new Thread(spooler::close);
+		closer.start();
+
+		channel.release();
+		lane.join(5000);
+		closer.join(5000);
+
+		assertFalse(closer.isAlive(), "Closing should finish once the queued receipts are printed.");
+		assertEquals(3, spooler.getPrintedCount(), "A receipt queued while closing should be printed.");
+	}
+
+	private static int countReceipts(String output) {
+		return output.split("End receipt", -1).length - 1;
+	}
+
+	private static class BlockingChannel implements WritableByteChannel {
+		private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		private final CountDownLatch firstWrite = new CountDownLatch(1);
+		private final CountDownLatch released = new CountDownLatch(1);
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			firstWrite.countDown();
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			int count = source.remaining();
+			byte[] bytes = new byte[count];
+			source.get(bytes);
+			synchronized (written) {
+				written.write(bytes);
+			}
+			return count;
+		}
+
+		void awaitFirstWrite() throws InterruptedException {
+			assertTrue(firstWrite.await(5, TimeUnit.SECONDS), "Printer never started writing.");
+		}
+
+		void release() {
+			released.countDown();
+		}
+
+		String output() {
+			synchronized (written) {
+				return written.toString(StandardCharsets.UTF_8);
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
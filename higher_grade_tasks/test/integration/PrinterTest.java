@@ -1,16 +1,22 @@
 package integration;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
+import dto.SaleLineDTO;
 import model.Amount;
 
 public class PrinterTest {
@@ -39,15 +45,13 @@ public class PrinterTest {
 
 	@Test
 	public void testPrinterPrint() {
-		ArrayList<ItemDTO> boughtItems = new ArrayList<>();
-		for (int i = 0; i < 11; i++) {
-			boughtItems.add(new ItemDTO("test1", "test1",
-					new Amount("12"), new Amount("0.456"),
-					"testDesc"));
-		}
-		boughtItems.add(new ItemDTO("test2", "test kinda long name item",
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("test1", "test1",
+				new Amount("12"), new Amount("0.456"),
+				"testDesc"), 11));
+		saleLines.add(new SaleLineDTO(new ItemDTO("test2", "test kinda long name item",
 				new Amount("4567"), new Amount("0.123"),
-				"testDesc2"));
+				"testDesc2"), 1));
 
 		LocalDateTime saleDateTime = LocalDateTime.parse("2024-02-12T16:05");
 		Amount totalPrice = new Amount("74.7");
@@ -55,7 +59,7 @@ public class PrinterTest {
 		Amount amountPaid = new Amount("100.0");
 		Amount change = new Amount("25.3");
 		Amount discountedPrice = new Amount("70.97");
-		SaleDTO saleInfo = new SaleDTO(saleDateTime, boughtItems, totalPrice, totalVat, amountPaid, change, discountedPrice);
+		SaleDTO saleInfo = new SaleDTO(saleDateTime, saleLines, totalPrice, totalVat, amountPaid, change, discountedPrice);
 		ReceiptDTO receipt = new ReceiptDTO(saleInfo);
 
 		printer.printReceipt(receipt);
@@ -65,9 +69,87 @@ public class PrinterTest {
 				"Faild to print the start of receipt.");
 		assertTrue(output.contains("test kinda long nam...    1 x 5128:74    5128:74 SEK"),
 				"Failed to print bought items.");
+		assertTrue(output.contains("test1                    11 x   17:47     192:19 SEK"),
+				"Failed to print quantity of bought items.");
 		assertTrue(output.contains("Change:                                    25:30 SEK"),
 				"Failed to print total price.");
 		assertTrue(output.contains("End receipt"),
 				"Failed to print the end of receipt.");
 	}
+
+	@Test
+	public void testPrinterWritesToChannel() {
+		ByteArrayOutputStream channelBuffer = new ByteArrayOutputStream();
+		Printer channelPrinter = new Printer(Channels.newChannel(channelBuffer), StandardCharsets.UTF_8);
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("test1", "Smörgås", new Amount("10"), new Amount("0.25"), "desc"),
+				2));
+		SaleDTO saleInfo = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, new Amount("25"),
+				new Amount("5"), new Amount("30"), new Amount("5"), new Amount());
+
+		channelPrinter.printReceipt(new ReceiptDTO(saleInfo));
+		channelPrinter.printReceipt(new ReceiptDTO(saleInfo));
+
+		String output = channelBuffer.toString(StandardCharsets.UTF_8);
+		assertTrue(output.contains("Smörgås                   2 x   12:50      25:00 SEK"),
+				"Failed to encode receipt for the channel.");
+		assertEquals(output.indexOf("End receipt"), output.lastIndexOf("End receipt") - output.length() / 2,
+				"Both receipts should be written whole.");
+		assertEquals(0, printoutBuffer.size(), "Nothing should be printed to the console.");
+	}
+
+	@Test
+	public void testArchivedReceiptIsReprinted(@TempDir Path archiveDirectory) throws IOException {
+		ByteArrayOutputStream channelBuffer = new ByteArrayOutputStream();
+		Printer channelPrinter = new Printer(Channels.newChannel(channelBuffer), StandardCharsets.UTF_8);
+		SaleDTO saleInfo = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), new ArrayList<>(), new Amount("25"),
+				new Amount("5"), new Amount("30"), new Amount("5"), new Amount());
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			channelPrinter.useArchive(archive);
+			channelPrinter.printReceipt(new ReceiptDTO(saleInfo));
+			String printed = channelBuffer.toString(StandardCharsets.UTF_8);
+			assertTrue(printed.contains("Receipt Number:                                    1"),
+					"Receipt number should be printed on the receipt.");
+
+			assertTrue(channelPrinter.reprintReceipt(1), "Archived receipt should be reprinted.");
+			assertEquals(printed + printed, channelBuffer.toString(StandardCharsets.UTF_8),
+					"Reprinted receipt should match the original.");
+			assertFalse(channelPrinter.reprintReceipt(2), "Unknown receipt should not be reprinted.");
+		}
+	}
+
+	@Test
+	public void testPrintedReceiptIsArchivedWithoutClosing(@TempDir Path archiveDirectory) throws IOException {
+		Printer channelPrinter = new Printer(Channels.newChannel(new ByteArrayOutputStream()), StandardCharsets.UTF_8);
+		SaleDTO saleInfo = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), new ArrayList<>(), new Amount("25"),
+				new Amount("5"), new Amount("30"), new Amount("5"), new Amount());
+		/* Left open, as when the program stops without closing the archive. */
+		channelPrinter.useArchive(new ReceiptArchive(archiveDirectory));
+
+		channelPrinter.printReceipt(new ReceiptDTO(saleInfo));
+
+		try (ReceiptArchive reopened = new ReceiptArchive(archiveDirectory)) {
+			assertTrue(reopened.findReceipt(1).isPresent(), "Printed receipt should be written to the archive.");
+			assertTrue(reopened.append(saleInfo.saleDateTime(), "Next receipt") > 1,
+					"Printed receipt number should not be given out again.");
+		}
+	}
+
+	@Test
+	public void testReceiptIsPrintedWhenArchiveIsClosed(@TempDir Path archiveDirectory) throws IOException {
+		ByteArrayOutputStream channelBuffer = new ByteArrayOutputStream();
+		Printer channelPrinter = new Printer(Channels.newChannel(channelBuffer), StandardCharsets.UTF_8);
+		SaleDTO saleInfo = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), new ArrayList<>(), new Amount("25"),
+				new Amount("5"), new Amount("30"), new Amount("5"), new Amount());
+		ReceiptArchive archive = new ReceiptArchive(archiveDirectory);
+		channelPrinter.useArchive(archive);
+		archive.close();
+
+		channelPrinter.printReceipt(new ReceiptDTO(saleInfo));
+
+		String printed = channelBuffer.toString(StandardCharsets.UTF_8);
+		assertTrue(printed.contains("End receipt"), "Receipt should be printed without the archive.");
+		assertFalse(printed.contains("Receipt Number:"), "Receipt that is not archived should have no number.");
+	}
 }
@@ -0,0 +1,182 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ArchivedReceiptDTO;
+
+public class ReceiptArchiveTest {
+	private static final LocalDateTime START = LocalDateTime.parse("2024-02-12T16:05");
+
+	@TempDir
+	Path archiveDirectory;
+
+	@Test
+	public void testReceiptsAreFoundByNumberAfterReopening() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory, 256, 1024)) {
+			for (int i = 0; i < 100; i++) {
+				assertEquals(i + 1, archive.append(START.plusMinutes(i), "Receipt " + i + " åäö"),
+						"Receipts should be numbered in order.");
+			}
+			assertTrue(archive.getSegmentCount() > 1, "Archive should roll over to new segments.");
+		}
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory, 256, 1024)) {
+			for (int i = 0; i < 100; i++) {
+				Optional<ArchivedReceiptDTO> found = archive.findReceipt(i + 1);
+				assertTrue(found.isPresent(), "Archived receipt was not found.");
+				assertEquals("Receipt " + i + " åäö", found.get().receipt(), "Wrong receipt was found.");
+				assertEquals(START.plusMinutes(i), found.get().saleDateTime(), "Wrong time of sale.");
+			}
+			assertTrue(archive.findReceipt(101).isEmpty(), "Receipt that was never archived should not be found.");
+			assertEquals(101, archive.append(START, "Next"), "Numbering should continue after reopening.");
+		}
+	}
+
+	@Test
+	public void testUnwrittenReceiptsAreFound() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			long receiptNumber = archive.append(START, "Pending receipt");
+
+			assertEquals("Pending receipt", archive.findReceipt(receiptNumber).get().receipt(),
+					"Receipt in the unwritten block should be found.");
+			assertEquals(1, archive.findReceipts(START, START).size(), "Receipt should be found by time of sale.");
+		}
+	}
+
+	@Test
+	public void testReceiptsAreFoundByTimeOfSale() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory, 256, 1024)) {
+			for (int i = 0; i < 100; i++) {
+				archive.append(START.plusDays(i % 10), "Receipt " + i);
+			}
+			archive.flush();
+
+			List<ArchivedReceiptDTO> found = archive.findReceipts(START.plusDays(3), START.plusDays(4));
+
+			assertEquals(20, found.size(), "Every receipt of the period should be found.");
+			for (int i = 1; i < found.size(); i++) {
+				assertTrue(found.get(i - 1).receiptNumber() < found.get(i).receiptNumber(),
+						"Receipts should be ordered by receipt number.");
+			}
+			assertTrue(found.stream().allMatch(receipt -> !receipt.saleDateTime().isBefore(START.plusDays(3))
+					&& !receipt.saleDateTime().isAfter(START.plusDays(4))), "Receipts outside the period were found.");
+		}
+	}
+
+	@Test
+	public void testBlockWithoutIndexEntryIsDiscarded() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			archive.append(START, "Written receipt");
+		}
+		Path segmentFile;
+		try (Stream<Path> files = Files.list(archiveDirectory)) {
+			segmentFile = files.filter(file -> file.toString().endsWith(".seg")).findFirst().get();
+		}
+		long writtenSize = Files.size(segmentFile);
+		try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+		}
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			assertEquals(writtenSize, Files.size(segmentFile), "Unindexed data should be cut off.");
+			assertEquals(1, archive.getReceiptCount(), "Indexed receipt should be kept.");
+			assertEquals("Written receipt", archive.findReceipt(1).get().receipt(), "Indexed receipt was damaged.");
+		}
+	}
+
+	@Test
+	public void testNumberingContinuesAfterEmptySegment() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			archive.append(START, "Written receipt");
+		}
+		Files.createFile(archiveDirectory.resolve("receipts-0000000000000002.seg"));
+		Files.createFile(archiveDirectory.resolve("receipts-0000000000000002.idx"));
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			assertEquals(1, archive.getSegmentCount(), "Segment without blocks should be removed.");
+			assertEquals(2, archive.append(START, "Next receipt"), "Numbering should continue after the last receipt.");
+		}
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			assertEquals("Written receipt", archive.findReceipt(1).get().receipt(), "Earlier receipt was lost.");
+			assertEquals("Next receipt", archive.findReceipt(2).get().receipt(), "Later receipt was lost.");
+		}
+	}
+
+	@Test
+	public void testReservedNumbersAreArchivedInAnyOrder() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory, 256, 1024)) {
+			long first = archive.reserveReceiptNumber();
+			long released = archive.reserveReceiptNumber();
+			for (int i = 0; i < 20; i++) {
+				archive.append(START, "Later receipt " + i);
+			}
+			archive.flush();
+			assertEquals(0, archive.getSegmentCount(), "Receipts should wait while a lower number is reserved.");
+
+			archive.releaseReceiptNumber(released);
+			archive.append(first, START, "First receipt");
+			archive.flush();
+			assertEquals(21, archive.getReceiptCount(), "Released number should not count as a receipt.");
+		}
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory, 256, 1024)) {
+			assertEquals("First receipt", archive.findReceipt(1).get().receipt(), "Late receipt was not archived.");
+			assertTrue(archive.findReceipt(2).isEmpty(), "Released number should have no receipt.");
+			assertEquals("Later receipt 19", archive.findReceipt(22).get().receipt(), "Wrong receipt was found.");
+			assertEquals(1, archive.findReceipts(START, START).get(0).receiptNumber(),
+					"Receipts should be ordered by receipt number.");
+			assertEquals(21, archive.getReceiptCount(), "Receipt count should be kept after reopening.");
+			assertEquals(23, archive.append(START, "Next"), "Numbering should continue after the last receipt.");
+			assertThrows(IllegalArgumentException.class, () -> archive.append(99, START, "Unknown"),
+					"Receipt number that was never reserved should be refused.");
+		}
+	}
+
+	@Test
+	public void testNumbersAreNotReusedAfterCrash() throws IOException {
+		/* Left open, as when the program stops without closing the archive. */
+		ReceiptArchive crashed = new ReceiptArchive(archiveDirectory);
+		long lastNumber = 0;
+		for (int i = 0; i < 3; i++) {
+			lastNumber = crashed.append(START, "Unwritten receipt " + i);
+		}
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			assertTrue(archive.append(START, "Next receipt") > lastNumber,
+					"A number that may have been printed should not be reserved again.");
+		}
+	}
+
+	@Test
+	public void testNumberingHasNoGapAfterClosing() throws IOException {
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			archive.append(START, "Receipt");
+		}
+
+		try (ReceiptArchive archive = new ReceiptArchive(archiveDirectory)) {
+			assertEquals(2, archive.append(START, "Next receipt"), "Numbering should continue after the last receipt.");
+		}
+	}
+
+	@Test
+	public void testClosedArchiveRefusesReceipts() throws IOException {
+		ReceiptArchive archive = new ReceiptArchive(archiveDirectory);
+		archive.close();
+
+		assertThrows(IllegalStateException.class, () -> archive.append(START, "Late receipt"),
+				"Closed archive should not accept receipts.");
+	}
+}
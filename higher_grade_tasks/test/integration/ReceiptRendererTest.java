@@ -0,0 +1,89 @@
+package integration;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class ReceiptRendererTest {
+	private ReceiptRenderer renderer;
+
+	@BeforeEach
+	public void setUp() {
+		renderer = new ReceiptRenderer();
+	}
+
+	@Test
+	public void testRenderMatchesReceiptLayout() throws IOException {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("test1", "test1", new Amount("12"), new Amount("0.456"), "desc"),
+				11));
+		SaleDTO sale = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, new Amount("74.7"),
+				new Amount("4.23"), new Amount("100.0"), new Amount("25.3"), new Amount("70.97"));
+		StringBuilder out = new StringBuilder();
+
+		renderer.render(sale, out);
+
+		assertEquals("""
+				------------------ Begin receipt -------------------
+				Time of Sale:                       2024-02-12 16:05
+
+				test1                    11 x   17:47     192:19 SEK
+
+				Discount Applied:                          70:97 SEK
+				Total:                                     74:70 SEK
+				VAT:                                        4:23 SEK
+
+				Cash:                                     100:00 SEK
+				Change:                                    25:30 SEK
+				------------------ End receipt ---------------------
+				""", out.toString(), "Receipt layout should be unchanged.");
+	}
+
+	@Test
+	public void testRenderAppendsToExistingContent() throws IOException {
+		SaleDTO sale = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), new ArrayList<>(), new Amount(),
+				new Amount(), new Amount(), new Amount(), new Amount());
+		StringBuilder out = new StringBuilder("previous\n");
+
+		renderer.render(sale, out);
+		int firstLength = out.length();
+		renderer.render(sale, out);
+
+		assertTrue(out.toString().startsWith("previous\n------------------ Begin receipt"),
+				"Receipt should be appended after existing content.");
+		assertEquals(firstLength * 2 - "previous\n".length(), out.length(), "Receipts should have the same size.");
+	}
+
+	@Test
+	public void testItemsAreMergedByIdInScanOrder() throws IOException {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		String[] ids = { "milk", "bread", "apple", "cheese", "butter" };
+		for (String id : ids) {
+			saleLines.add(new SaleLineDTO(new ItemDTO(id, id, new Amount("10"), new Amount("0.25"), "desc"), 1));
+		}
+		saleLines.add(new SaleLineDTO(new ItemDTO("bread", "bread", new Amount("10.00"), new Amount("0.250"), "desc"),
+				2));
+		SaleDTO sale = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, new Amount(), new Amount(),
+				new Amount(), new Amount(), new Amount());
+		StringBuilder out = new StringBuilder();
+
+		renderer.render(sale, out);
+
+		String receipt = out.toString();
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(receipt.indexOf(ids[i - 1] + " ") < receipt.indexOf(ids[i] + " "),
+					"Items should be listed in the order they were first scanned.");
+		}
+		assertTrue(receipt.contains("bread                     3 x   12:50      37:50 SEK"),
+				"Lines with the same item id should be merged.");
+		assertEquals(receipt.indexOf("bread "), receipt.lastIndexOf("bread "), "Merged item should be listed once.");
+	}
+}
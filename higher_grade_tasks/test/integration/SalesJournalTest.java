@@ -0,0 +1,197 @@
+package integration;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class SalesJournalTest {
+	private static final LocalDateTime START = LocalDateTime.parse("2024-02-12T16:05:30.123456789");
+
+	@TempDir
+	Path tempDir;
+
+	private Path journalFile;
+
+	@BeforeEach
+	public void setUp() {
+		journalFile = tempDir.resolve("sales.journal");
+	}
+
+	@Test
+	public void testJournaledSalesAreReplayed() throws IOException {
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			journal.append(createSale(0));
+			journal.append(createSale(1));
+		}
+
+		ArrayList<SaleDTO> replayed = new ArrayList<>();
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			assertEquals(2, journal.replay(replayed::add), "Every journaled sale should be replayed.");
+			assertEquals(2, journal.getRecoveredCount(), "Recovered sales were not counted.");
+		}
+
+		assertEquals(createSale(0), replayed.get(0), "Replayed sale should equal the journaled sale.");
+		assertEquals(createSale(1), replayed.get(1), "Sales should be replayed in order.");
+	}
+
+	@Test
+	public void testConcurrentSalesAreCommittedTogether() throws IOException {
+		int saleCount = 200;
+		try (SalesJournal journal = new SalesJournal(journalFile, Duration.ofMillis(50), 64)) {
+			List<CompletableFuture<Void>> durable = new ArrayList<>();
+			for (int i = 0; i < saleCount; i++) {
+				durable.add(journal.appendAsync(createSale(i)));
+			}
+			CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).join();
+
+			assertEquals(saleCount, journal.getJournaledCount(), "Every sale should be journaled.");
+			assertTrue(journal.getCommitCount() <= saleCount / 64 + 2, "Sales should be committed in groups.");
+		}
+
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			assertEquals(saleCount, journal.replay(sale -> {}), "Every committed sale should be replayed.");
+		}
+	}
+
+	@Test
+	public void testDamagedTailIsCutOff() throws IOException {
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			journal.append(createSale(0));
+			journal.append(createSale(1));
+		}
+		long fullSize = Files.size(journalFile);
+		try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 42 }), fullSize - 3);
+			channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 50, 1 }), fullSize);
+		}
+
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			assertEquals(1, journal.replay(sale -> {}), "Only the intact sale should be replayed.");
+			assertTrue(Files.size(journalFile) < fullSize, "Damaged records should be cut off.");
+			journal.append(createSale(2));
+		}
+
+		ArrayList<SaleDTO> replayed = new ArrayList<>();
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			journal.replay(replayed::add);
+		}
+		assertEquals(List.of(createSale(0), createSale(2)), replayed,
+				"New sales should follow the last intact sale.");
+	}
+
+	@Test
+	public void testAccountingSystemRecoversJournaledSales() throws IOException {
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			AccountingSystem accountingSystem = new AccountingSystem(journal);
+			accountingSystem.account(createSale(0));
+			accountingSystem.account(createSale(1));
+		}
+
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			AccountingSystem accountingSystem = new AccountingSystem(journal);
+
+			assertEquals(2, accountingSystem.getSaleCount(), "Journaled sales should be recorded again.");
+			assertEquals(new Amount("21"), accountingSystem.getTotalRevenue(), "Recovered revenue is wrong.");
+		}
+	}
+
+	@Test
+	public void testUnrecordableSaleIsNotJournaled() throws IOException {
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			AccountingSystem accountingSystem = new AccountingSystem(journal);
+
+			assertThrows(ArithmeticException.class, () -> accountingSystem.account(createHugeSale()),
+					"Sale too large to record should be refused.");
+			assertEquals(0, journal.getJournaledCount(), "Refused sale should not be journaled.");
+		}
+	}
+
+	@Test
+	public void testUnrecordableJournaledSaleIsSkipped() throws IOException {
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			journal.append(createHugeSale());
+			journal.append(createSale(0));
+		}
+
+		try (SalesJournal journal = new SalesJournal(journalFile)) {
+			AccountingSystem accountingSystem = new AccountingSystem(journal);
+
+			assertEquals(1, accountingSystem.getSaleCount(), "Recordable sales should still be recovered.");
+		}
+	}
+
+	@Test
+	public void testClosedJournalRefusesSales() throws IOException {
+		SalesJournal journal = new SalesJournal(journalFile);
+		journal.close();
+
+		assertThrows(IllegalStateException.class, () -> journal.append(createSale(0)),
+				"Closed journal should not accept sales.");
+	}
+
+	@Test
+	public void testSalesAppendedWhileClosingAreJournaledOrRefused() throws IOException, InterruptedException {
+		SalesJournal journal = new SalesJournal(journalFile, Duration.ofMillis(1), 8);
+		AtomicInteger journaled = new AtomicInteger();
+		ArrayList<Thread> lanes = new ArrayList<>();
+		for (int lane = 0; lane < 4; lane++) {
+			Thread thread = new Thread(() -> {
+				try {
+					for (int i = 0;; i++) {
+						journal.append(createSale(i));
+						journaled.incrementAndGet();
+					}
+				} catch (IllegalStateException e) {
+					/* The journal has been closed. */
+				}
+			});
+			thread.start();
+			lanes.add(thread);
+		}
+		while (journaled.get() < 20) {
+			Thread.sleep(1);
+		}
+
+		journal.close();
+		for (Thread thread : lanes) {
+			thread.join(5000);
+			assertFalse(thread.isAlive(), "A sale appended while closing was never completed.");
+		}
+		try (SalesJournal reopened = new SalesJournal(journalFile)) {
+			assertEquals(journaled.get(), reopened.getRecoveredCount(), "Every accepted sale should be journaled.");
+		}
+	}
+
+	private static SaleDTO createHugeSale() {
+		Amount huge = new Amount(new BigDecimal("1E30"));
+		return new SaleDTO(START, new ArrayList<>(), huge, new Amount(), huge, new Amount(), new Amount());
+	}
+
+	private static SaleDTO createSale(int number) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("item" + number, "Smörgås", new Amount("29.9"),
+				new Amount("0.06"), "Räksmörgås"), number + 1));
+		Amount total = new Amount(10 + number, 0);
+		return new SaleDTO(START.plusSeconds(number), saleLines, total, new Amount("1.123"), new Amount("100"),
+				new Amount(100, 0).subtract(total), new Amount("0.5"));
+	}
+}
@@ -0,0 +1,116 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountTest {
+
+	@Test
+	public void testAddAndSubtractWithDifferentScales() {
+		Amount first = new Amount("29.9");
+		Amount second = new Amount("0.06");
+
+		assertEquals(new Amount("29.96"), first.add(second),
+				"Failed to add amounts with different number of decimals.");
+		assertEquals(new Amount("29.84"), first.subtract(second),
+				"Failed to subtract amounts with different number of decimals.");
+	}
+
+	@Test
+	public void testMultiplyMatchesBigDecimal() {
+		Amount price = new Amount("4567");
+		Amount vatFactor = new Amount("1.123");
+
+		assertEquals(new Amount("5128.741"), price.multiply(vatFactor),
+				"Failed to multiply amounts.");
+	}
+
+	@Test
+	public void testTerminatingDivisionIsExact() {
+		Amount total = new Amount("74.70");
+		Amount divisor = new Amount("4");
+
+		assertEquals(new Amount("18.675"), total.divide(divisor),
+				"Failed to divide amounts with a terminating quotient.");
+	}
+
+	@Test
+	public void testNonTerminatingDivisionMatchesBigDecimal() {
+		Amount fullPrice = new Amount("29.9");
+		Amount divisor = new Amount("1.06");
+
+		BigDecimal expected = new BigDecimal("29.9").divide(new BigDecimal("1.06"), MathContext.DECIMAL128);
+
+		assertEquals(new Amount(expected), fullPrice.divide(divisor),
+				"Non-terminating division should fall back to BigDecimal precision.");
+		assertEquals(new Amount("29.9"), fullPrice.divide(divisor).multiply(divisor).rounded(),
+				"Fallback value should round trip.");
+	}
+
+	@Test
+	public void testOverflowFallsBackToBigDecimal() {
+		Amount large = new Amount(Long.MAX_VALUE, 0);
+		Amount sum = large.add(new Amount(1, 0));
+
+		assertEquals(new Amount(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE)), sum,
+				"Addition should not overflow.");
+		assertTrue(sum.compareTo(large) > 0, "Sum should be larger than the original amount.");
+	}
+
+	@Test
+	public void testRoundedUsesHalfUp() {
+		assertEquals(new Amount("17.47"), new Amount("17.472").rounded(), "Failed to round down.");
+		assertEquals(new Amount("17.48"), new Amount("17.475").rounded(), "Failed to round half up.");
+		assertEquals(new Amount("-17.48"), new Amount("-17.475").rounded(), "Failed to round negative half up.");
+		assertEquals(new Amount("5.00"), new Amount("5").rounded(), "Failed to scale up.");
+	}
+
+	@Test
+	public void testEqualAmountsHaveEqualHashCodes() {
+		Amount first = new Amount("12.50");
+		Amount second = new Amount(125, 1);
+
+		assertEquals(first, second, "Amounts with different scales should be equal.");
+		assertEquals(first.hashCode(), second.hashCode(), "Equal amounts should have equal hash codes.");
+	}
+
+	@Test
+	public void testSignChecks() {
+		assertTrue(new Amount().isZero(), "New amount should be zero.");
+		assertTrue(new Amount("-0.01").isNegative(), "Amount should be negative.");
+		assertTrue(new Amount("0.01").isPositive(), "Amount should be positive.");
+	}
+
+	@Test
+	public void testAccumulatorMatchesImmutableAddition() {
+		AmountAccumulator accumulator = new AmountAccumulator();
+		Amount expected = new Amount();
+		Amount[] amounts = { new Amount("29.9"), new Amount("0.06"), new Amount("4567"), new Amount("1.123") };
+
+		for (Amount amount : amounts) {
+			accumulator.add(amount);
+			expected = expected.add(amount);
+		}
+		accumulator.subtract(new Amount("0.06"));
+		expected = expected.subtract(new Amount("0.06"));
+
+		assertEquals(expected, accumulator.toAmount(), "Accumulated total should match immutable addition.");
+	}
+
+	@Test
+	public void testAccumulatorKeepsBigDecimalPrecision() {
+		AmountAccumulator accumulator = new AmountAccumulator();
+		Amount basePrice = new Amount("29.9").divide(new Amount("1.06"));
+
+		accumulator.add(basePrice);
+		accumulator.add(new Amount(Long.MAX_VALUE, 0));
+
+		assertEquals(basePrice.add(new Amount(Long.MAX_VALUE, 0)), accumulator.toAmount(),
+				"Accumulator should fall back to BigDecimal without losing precision.");
+		assertSame(accumulator.toAmount(), accumulator.toAmount(),
+				"Unchanged total should not be materialized twice.");
+	}
+}
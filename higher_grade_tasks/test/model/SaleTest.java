@@ -1,6 +1,7 @@
 package model;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -9,6 +10,11 @@ import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
 import dto.SaleInfoDTO;
+import dto.SaleLineDTO;
+import model.discount.BundlePricePromotion;
+import model.discount.BuyNPayMPromotion;
+import model.discount.ItemPercentagePromotion;
+import model.discount.LinePromotion;
 
 public class SaleTest {
 
@@ -26,8 +32,8 @@ public class SaleTest {
 
 	@Test
 	public void testSaleConstructor() {
-		assertNotNull(saleInstance.getBoughtItems(), "Bought items list should be initialized.");
-		assertEquals(0, saleInstance.getBoughtItems().size(), "Bought items list should be empty initially.");
+		assertNotNull(saleInstance.getSaleLines(), "Sale lines should be initialized.");
+		assertEquals(0, saleInstance.getSaleLines().size(), "Sale lines should be empty initially.");
 		assertEquals(new Amount("0"), saleInstance.getTotalPrice(),
 				"Initial total price should be zero.");
 	}
@@ -49,9 +55,9 @@ public class SaleTest {
 				"Returned item DTO should have the full price.");
 		assertEquals(expectedFullPrice, resultInfo.totalPrice(),
 				"Returned running total should match the item's full price.");
-		assertEquals(1, saleInstance.getBoughtItems().size(),
-				"One item should be in the bought items list.");
-		assertEquals(testItem.id(), saleInstance.getBoughtItems().get(0).id(),
+		assertEquals(1, saleInstance.getSaleLines().size(),
+				"One line should be in the sale.");
+		assertEquals(testItem.id(), saleInstance.getSaleLines().get(0).item().id(),
 				"The correct item should be added.");
 		assertEquals(expectedFullPrice, saleInstance.getTotalPrice(),
 				"Sale total price should be updated correctly.");
@@ -76,22 +82,52 @@ public class SaleTest {
 		saleInstance.addBoughtItem(item4);
 		saleInstance.addBoughtItem(item5);
 
-		List<ItemDTO> items = saleInstance.getBoughtItems();
+		List<SaleLineDTO> lines = saleInstance.getSaleLines();
 
-		assertEquals(5, items.size(),
+		assertEquals(5, lines.size(),
 				"Failed to add Items");
-		assertEquals("item1", items.get(0).id(),
+		assertEquals("item1", lines.get(0).item().id(),
 				"Failed to read Item ID");
-		assertEquals("Test Item 2", items.get(1).name(),
+		assertEquals("Test Item 2", lines.get(1).item().name(),
 				"Failed to read Item name");
-		assertEquals(new Amount("30.00"), items.get(2).price(),
+		assertEquals(new Amount("30.00"), lines.get(2).item().price(),
 				"Failed to read Item price");
-		assertEquals(new Amount("0.10"), items.get(3).vat(),
+		assertEquals(new Amount("0.10"), lines.get(3).item().vat(),
 				"Failed to read Item VAT");
-		assertEquals("Test item number five", items.get(4).description(),
+		assertEquals("Test item number five", lines.get(4).item().description(),
 				"Failed to read Item description");
 	}
 
+	@Test
+	public void testRepeatedItemsShareOneLine() {
+		ItemDTO item1 = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"),
+				"Test item number one");
+		ItemDTO item2 = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0.20"),
+				"Test item number two");
+
+		saleInstance.addBoughtItem(item1);
+		saleInstance.addBoughtItem(item2);
+		saleInstance.addBoughtItem(item1);
+		SaleInfoDTO resultInfo = saleInstance.addBoughtItem(item1, 3);
+
+		List<SaleLineDTO> lines = saleInstance.getSaleLines();
+
+		assertEquals(2, lines.size(), "Repeated items should not create new lines.");
+		assertEquals("item1", lines.get(0).item().id(), "Lines should keep first entered order.");
+		assertEquals(5, lines.get(0).quantity(), "Failed to aggregate quantity.");
+		assertEquals(6, saleInstance.getItemCount(), "Failed to count bought units.");
+		assertEquals(3, resultInfo.quantity(), "Running info should report the entered quantity.");
+		assertEquals(new Amount("86.50"), resultInfo.totalPrice(), "Failed to calculate running total.");
+	}
+
+	@Test
+	public void testAddBoughtItemRejectsNonPositiveQuantity() {
+		ItemDTO item = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+
+		assertThrows(IllegalArgumentException.class, () -> saleInstance.addBoughtItem(item, 0),
+				"Zero quantity should be rejected.");
+	}
+
 	@Test
 	public void testGetSaleInfo() {
 		ItemDTO item = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
@@ -121,4 +157,40 @@ public class SaleTest {
 		assertEquals(saleDTO, receipt.sale(),
 				"Failed to transfer saleDTO correctly to receipt");
 	}
+
+	@Test
+	public void testBuyThreePayTwoIsAppliedWhileScanning() {
+		ItemDTO item = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+		LinePromotion promotion = new BuyNPayMPromotion(3, new Amount("2"), "Buy 3 pay 2");
+		Sale sale = new Sale(itemId -> Optional.of(promotion).filter(found -> itemId.equals("item1")));
+
+		sale.addBoughtItem(item);
+		SaleInfoDTO secondScan = sale.addBoughtItem(item);
+		SaleInfoDTO thirdScan = sale.addBoughtItem(item);
+
+		assertEquals(new Amount("25.00"), secondScan.totalPrice(), "No deal before the group is complete.");
+		assertEquals(new Amount("25.00"), thirdScan.totalPrice(), "Third unit should be free.");
+		assertEquals(new Amount("12.50"), sale.getPromotionDiscount(), "Promotion discount should be tracked.");
+
+		SaleInfoDTO moreUnits = sale.addBoughtItem(item, 4);
+		assertEquals(new Amount("62.50"), moreUnits.totalPrice(), "Seven units should include two free units.");
+		assertEquals(new Amount("25.00"), sale.getSaleInfo(new Amount("100")).discountedPrice(),
+				"Promotion discount should be reported with the other discounts.");
+	}
+
+	@Test
+	public void testBundleAndPercentagePromotions() {
+		ItemDTO bundled = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+		ItemDTO reduced = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0"), "bread");
+		Sale sale = new Sale(itemId -> switch (itemId) {
+		case "item1" -> Optional.of(new BundlePricePromotion(2, new Amount("20.00"), "2 for 20 SEK"));
+		case "item2" -> Optional.of(new ItemPercentagePromotion(new Amount("0.10"), "10% off"));
+		default -> Optional.empty();
+		});
+
+		sale.addBoughtItem(bundled, 3);
+		SaleInfoDTO saleInfo = sale.addBoughtItem(reduced, 2);
+
+		assertEquals(new Amount("68.50"), saleInfo.totalPrice(), "One bundle and 10% off should apply.");
+	}
 }
@@ -0,0 +1,70 @@
+package model.discount;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.DiscountDTO;
+import integration.DiscountCatalog;
+import integration.DiscountRuleFormatException;
+import model.Amount;
+
+public class DiscountFactoryTest {
+	private DiscountCatalog discountCatalog;
+	private DiscountFactory discountFactory;
+	private DiscountDTO discountDTO;
+
+	@BeforeEach
+	public void setUp() {
+		discountCatalog = new DiscountCatalog();
+		discountFactory = new DiscountFactory(discountCatalog);
+		discountDTO = new DiscountDTO(new ArrayList<>(), 3, new Amount("150"), 114514);
+	}
+
+	@Test
+	public void testStrategiesMatchDiscountTypes() {
+		ArrayList<DiscountStrategy> strategies = discountFactory.fetchEligibleDiscounts(discountDTO);
+
+		assertEquals(3, strategies.size(), "All three discounts should apply.");
+		assertInstanceOf(ItemBasedDiscount.class, strategies.get(0), "Wrong strategy for ITEM_BASED.");
+		assertInstanceOf(TotalPricePercentageDiscount.class, strategies.get(1), "Wrong strategy for TOTAL_PERCENT.");
+		assertInstanceOf(CustomerBasedDiscount.class, strategies.get(2), "Wrong strategy for CUSTOMER_PERCENT.");
+		assertEquals(new Amount("5.00"), strategies.get(0).calculateDiscount(new Amount("150")),
+				"Strategy should use the catalog value.");
+	}
+
+	@Test
+	public void testStrategiesAreSharedBetweenSales() {
+		ArrayList<DiscountStrategy> first = discountFactory.fetchEligibleDiscounts(discountDTO);
+		ArrayList<DiscountStrategy> second = discountFactory.fetchEligibleDiscounts(discountDTO);
+
+		for (int i = 0; i < first.size(); i++) {
+			assertSame(first.get(i), second.get(i), "Strategy should be created once per catalog entry.");
+		}
+	}
+
+	@Test
+	public void testStrategiesAreRecreatedWhenCatalogChanges() throws DiscountRuleFormatException {
+		DiscountStrategy before = discountFactory.fetchEligibleDiscounts(discountDTO).get(0);
+
+		discountCatalog.loadRules(List.of("rule;ITEM_BASED;7.00;items>2;7 SEK off"));
+		DiscountStrategy after = discountFactory.fetchEligibleDiscounts(discountDTO).get(0);
+
+		assertNotSame(before, after, "Strategies should not outlive the catalog version.");
+		assertEquals("7 SEK off", after.getDescription(), "New rules should be used.");
+	}
+
+	@Test
+	public void testPromotionsAreCreatedFromCatalog() throws DiscountRuleFormatException {
+		discountCatalog.loadRules(List.of("promotion;BUY_N_PAY_M;abc123;3;2;Buy 3 pay 2"));
+
+		LinePromotion promotion = discountFactory.findPromotion("abc123").orElseThrow();
+
+		assertInstanceOf(BuyNPayMPromotion.class, promotion, "Wrong promotion for BUY_N_PAY_M.");
+		assertSame(promotion, discountFactory.findPromotion("abc123").orElseThrow(),
+				"Promotion should be created once per catalog entry.");
+		assertTrue(discountFactory.findPromotion("def456").isEmpty(), "Item without promotion should have none.");
+	}
+}
@@ -0,0 +1,70 @@
+package model.discount;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.Amount;
+
+public class DiscountSolverTest {
+	private final Amount totalPrice = new Amount("200");
+
+	@Test
+	public void testSolverBeatsGreedyChoice() {
+		List<DiscountSolver.Candidate> candidates = List.of(
+				candidate("10", "both", "spring", "members"),
+				candidate("6", "spring only", "spring"),
+				candidate("6", "members only", "members"),
+				candidate("1", "always"));
+
+		DiscountSelection selection = new DiscountSolver(Duration.ofSeconds(10)).solve(candidates, totalPrice);
+
+		assertTrue(selection.isOptimal(), "Search should finish within the budget.");
+		assertEquals(List.of("spring only", "members only", "always"), descriptions(selection),
+				"Two smaller exclusive discounts should beat one larger.");
+		assertEquals(new Amount("13"), selection.getTotalDiscount(), "Total discount should be the sum.");
+	}
+
+	@Test
+	public void testAtMostOneDiscountPerGroup() {
+		List<DiscountSolver.Candidate> candidates = List.of(
+				candidate("5", "small", "coupon"),
+				candidate("8", "large", "coupon"));
+
+		DiscountSelection selection = new DiscountSolver(Duration.ofSeconds(10)).solve(candidates, totalPrice);
+
+		assertEquals(List.of("large"), descriptions(selection), "Only the largest discount of a group should apply.");
+	}
+
+	@Test
+	public void testGreedyFallbackWhenTimeBudgetIsUsed() {
+		ArrayList<DiscountSolver.Candidate> candidates = new ArrayList<>();
+		candidates.add(candidate("10", "both", "spring", "members"));
+		candidates.add(candidate("6", "spring only", "spring"));
+		candidates.add(candidate("6", "members only", "members"));
+		for (int i = 0; i < 600; i++) {
+			candidates.add(candidate("0.5", "group " + i, "group" + i, "shared" + (i % 40)));
+		}
+		long[] now = { 0 };
+		DiscountSolver solver = new DiscountSolver(Duration.ofMillis(1), () -> now[0] += 1_000_000);
+
+		DiscountSelection selection = solver.solve(candidates, totalPrice);
+
+		assertFalse(selection.isOptimal(), "Search should stop when the budget is used.");
+		assertEquals("both", descriptions(selection).get(0), "Fallback should choose the largest discount first.");
+		assertFalse(descriptions(selection).contains("spring only"), "Fallback should respect exclusivity.");
+		assertTrue(selection.getSolveTimeNanos() > 0, "Solve time should be reported.");
+	}
+
+	private DiscountSolver.Candidate candidate(String value, String description, String... groups) {
+		return new DiscountSolver.Candidate(new ItemBasedDiscount(new Amount(value), description), Set.of(groups));
+	}
+
+	private List<String> descriptions(DiscountSelection selection) {
+		return selection.getDiscounts().stream().map(DiscountStrategy::getDescription).toList();
+	}
+}
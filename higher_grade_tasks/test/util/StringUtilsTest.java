@@ -0,0 +1,58 @@
+package util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringUtilsTest {
+
+	@Test
+	public void testFormatBigDecimalToColon() {
+		assertEquals("5128:74", StringUtils.formatBigDecimalToColon(new BigDecimal("5128.741")),
+				"Failed to round and colonize.");
+		assertEquals("0:00", StringUtils.formatBigDecimalToColon(new BigDecimal("-0.004")),
+				"Amounts rounding to zero should not keep the sign.");
+		assertEquals("-25:30", StringUtils.formatBigDecimalToColon(new BigDecimal("-25.3")),
+				"Failed to colonize negative amount.");
+	}
+
+	@Test
+	public void testAppendColonizedRightAligned() {
+		StringBuilder out = new StringBuilder("Change:");
+
+		StringUtils.appendColonized(out, 2530L, 10);
+
+		assertEquals("Change:     25:30", out.toString(), "Failed to right align amount.");
+	}
+
+	@Test
+	public void testAppendColonizedWiderThanColumn() {
+		StringBuilder out = new StringBuilder();
+
+		StringUtils.appendColonized(out, 123456789L, 4);
+
+		assertEquals("1234567:89", out.toString(), "Wide amounts should not be cut.");
+	}
+
+	@Test
+	public void testAppendRightAligned() throws IOException {
+		StringBuilder out = new StringBuilder();
+
+		StringUtils.appendRightAligned(out, 7, 3);
+		StringUtils.appendRightAligned(out, -42, 4);
+		StringUtils.appendRightAligned(out, 12345, 2);
+
+		assertEquals("  7 -4212345", out.toString(), "Failed to right align whole numbers.");
+	}
+
+	@Test
+	public void testAppendPaddingLongerThanPrecomputedSpaces() {
+		StringBuilder out = new StringBuilder();
+
+		StringUtils.appendPadding(out, 100);
+
+		assertEquals(" ".repeat(100), out.toString(), "Failed to pad a wide column.");
+	}
+}